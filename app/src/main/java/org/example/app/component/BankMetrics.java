@@ -0,0 +1,109 @@
+package org.example.app.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.app.component.TransferProperties.ConcurrencyMode;
+import org.example.app.dto.BatchTransferDTO;
+import org.example.app.model.PeriodType;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Метрики переводов, лимитов и шифрования. Счётчики и таймеры регистрируются
+ * заранее, чтобы на горячем пути не было поиска метра в реестре.
+ */
+@Component
+public class BankMetrics {
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_INSUFFICIENT_FUNDS = "insufficient_funds";
+    public static final String OUTCOME_LIMIT_EXCEEDED = "limit_exceeded";
+    public static final String OUTCOME_CONFLICT = "conflict";
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry registry;
+    private final Timer encryptTimer;
+    private final Timer decryptTimer;
+    private final Counter insufficientFunds;
+    private final Map<PeriodType, Timer> limitCheckTimers = new EnumMap<>(PeriodType.class);
+    private final Map<PeriodType, Counter> limitRejections = new EnumMap<>(PeriodType.class);
+
+    public BankMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.encryptTimer = cryptoTimer("encrypt");
+        this.decryptTimer = cryptoTimer("decrypt");
+        this.insufficientFunds = Counter.builder("bank.transfers.insufficient.funds")
+                .description("Transfers rejected because of insufficient funds on the source card")
+                .register(registry);
+        for (PeriodType periodType : PeriodType.values()) {
+            limitCheckTimers.put(periodType, Timer.builder("bank.limits.check")
+                    .description("Check of a single card limit")
+                    .tag("period", periodType.name())
+                    .publishPercentileHistogram()
+                    .register(registry));
+            limitRejections.put(periodType, Counter.builder("bank.limits.rejections")
+                    .description("Operations rejected by a card limit")
+                    .tag("period", periodType.name())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Таймер перевода. Набор тегов ограничен режимами и исходами, поэтому
+     * метр берётся из реестра по ключу без создания новых серий.
+     */
+    public Timer transferTimer(ConcurrencyMode mode, String outcome) {
+        return Timer.builder("bank.transfers")
+                .description("Transfers between own cards including retries")
+                .tag("mode", mode.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Таймер пакета переводов целиком, вместе с повторами.
+     */
+    public Timer batchTransferTimer(BatchTransferDTO.Mode mode, String outcome) {
+        return Timer.builder("bank.transfers.batch")
+                .description("Batches of transfers between own cards including retries")
+                .tag("mode", mode.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    public Timer encryptTimer() {
+        return encryptTimer;
+    }
+
+    public Timer decryptTimer() {
+        return decryptTimer;
+    }
+
+    public Timer limitCheckTimer(PeriodType periodType) {
+        return limitCheckTimers.get(periodType);
+    }
+
+    public void insufficientFunds() {
+        insufficientFunds.increment();
+    }
+
+    public void limitRejected(PeriodType periodType) {
+        limitRejections.get(periodType).increment();
+    }
+
+    private Timer cryptoTimer(String operation) {
+        return Timer.builder("bank.crypto")
+                .description("Card number encryption and decryption")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
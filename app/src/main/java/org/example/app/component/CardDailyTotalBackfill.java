@@ -0,0 +1,55 @@
+package org.example.app.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.service.CardDailyTotalService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Пересчитывает дневные итоги по существующим транзакциям, например после
+ * ручной правки таблицы транзакций. Запускается при старте с
+ * {@code --transactions.daily-totals.backfill-on-startup=true}, каждый месяц
+ * пересчитывается в отдельной транзакции.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardDailyTotalBackfill {
+    private final CardDailyTotalService cardDailyTotalService;
+    private final TransactionRepository transactionRepository;
+
+    @Value("${transactions.daily-totals.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    // Первый пересчитываемый месяц в формате yyyy-MM, по умолчанию - месяц первой транзакции
+    @Value("${transactions.daily-totals.backfill-from:}")
+    private String backfillFrom;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            YearMonth from = backfillFrom.isBlank() ? null : YearMonth.parse(backfillFrom);
+            backfill(from, YearMonth.now());
+        }
+    }
+
+    public void backfill(YearMonth from, YearMonth to) {
+        if (from == null) {
+            from = transactionRepository.findFirstTransactionDate()
+                    .map(YearMonth::from)
+                    .orElse(to);
+        }
+        int rows = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            rows += cardDailyTotalService.rebuild(month);
+            log.debug("Daily totals rebuilt for {}", month);
+        }
+        log.info("Daily totals rebuilt from {} to {}: {} rows", from, to, rows);
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.app.component;
+
+/**
+ * Состояние лимитов карт на массивах примитивов: хэш-таблица с открытой адресацией
+ * по id карты и список LRU на индексах слотов. Память выделяется один раз
+ * под {@code capacity} карт и не растёт, при заполнении вытесняется карта,
+ * к которой дольше всего не обращались. Не потокобезопасна, доступ
+ * синхронизирует {@link HotCardLimitEngine}.
+ */
+class CardLimitTable {
+    // Карты с большим числом активных лимитов не кэшируются
+    static final int MAX_LIMITS = 4;
+    static final int NONE = -1;
+
+    private final int capacity;
+    private final long[] cardIds;
+    private final long[] loadedAt;
+    // Первый день (epochDay), когда у какого-то лимита карты начнётся новое окно
+    private final int[] validUntil;
+    private final int[] prev;
+    private final int[] next;
+    private final byte[] limitCounts;
+    // Лимиты слота s лежат в ячейках [s * MAX_LIMITS, s * MAX_LIMITS + limitCounts[s])
+    private final byte[] periodTypes;
+    private final int[] periodStarts;
+    private final long[] limitAmounts;
+    private final long[] spent;
+    // Номер слота + 1, 0 - пустая ячейка
+    private final int[] index;
+    private final int mask;
+
+    private int used;
+    private int size;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    private long evictions;
+
+    CardLimitTable(int capacity) {
+        this.capacity = capacity;
+        cardIds = new long[capacity];
+        loadedAt = new long[capacity];
+        validUntil = new int[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        limitCounts = new byte[capacity];
+        periodTypes = new byte[capacity * MAX_LIMITS];
+        periodStarts = new int[capacity * MAX_LIMITS];
+        limitAmounts = new long[capacity * MAX_LIMITS];
+        spent = new long[capacity * MAX_LIMITS];
+        // Заполненность индекса не больше половины, чтобы цепочки проб оставались короткими
+        index = new int[Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1];
+        mask = index.length - 1;
+    }
+
+    int find(long cardId) {
+        for (int i = home(cardId); index[i] != 0; i = (i + 1) & mask) {
+            if (cardIds[index[i] - 1] == cardId) {
+                return index[i] - 1;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Возвращает слот карты без лимитов, занимая свободный слот или вытесняя самую давнюю карту.
+     * Состояние слота действует до дня {@code validDay} не включительно.
+     */
+    int put(long cardId, long now, int validDay) {
+        int slot = find(cardId);
+        if (slot != NONE) {
+            touch(slot);
+        } else {
+            if (free != NONE) {
+                slot = free;
+                free = next[slot];
+            } else if (used < capacity) {
+                slot = used++;
+            } else {
+                slot = tail;
+                unlink(slot);
+                unindex(slot);
+                size--;
+                evictions++;
+            }
+            cardIds[slot] = cardId;
+            int i = home(cardId);
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            index[i] = slot + 1;
+            linkHead(slot);
+            size++;
+        }
+        loadedAt[slot] = now;
+        validUntil[slot] = validDay;
+        limitCounts[slot] = 0;
+        return slot;
+    }
+
+    void addLimit(int slot, int periodType, int periodStart, long limitAmount, long spentAmount) {
+        int cell = slot * MAX_LIMITS + limitCounts[slot]++;
+        periodTypes[cell] = (byte) periodType;
+        periodStarts[cell] = periodStart;
+        limitAmounts[cell] = limitAmount;
+        spent[cell] = spentAmount;
+    }
+
+    /**
+     * @return тип первого лимита, который превысит списание, или {@link #NONE}
+     */
+    int exceeded(int slot, long amount) {
+        int from = slot * MAX_LIMITS;
+        for (int cell = from; cell < from + limitCounts[slot]; cell++) {
+            if (spent[cell] + amount >= limitAmounts[cell]) {
+                return periodTypes[cell];
+            }
+        }
+        return NONE;
+    }
+
+    // Прибавляет изменение счётчика к лимитам карты с тем же периодом
+    void add(int slot, int periodType, int periodStart, long amount) {
+        int from = slot * MAX_LIMITS;
+        for (int cell = from; cell < from + limitCounts[slot]; cell++) {
+            if (periodTypes[cell] == periodType && periodStarts[cell] == periodStart) {
+                spent[cell] += amount;
+            }
+        }
+    }
+
+    void remove(int slot) {
+        unlink(slot);
+        unindex(slot);
+        size--;
+        next[slot] = free;
+        free = slot;
+    }
+
+    void touch(int slot) {
+        if (slot != head) {
+            unlink(slot);
+            linkHead(slot);
+        }
+    }
+
+    long loadedAt(int slot) {
+        return loadedAt[slot];
+    }
+
+    int validUntil(int slot) {
+        return validUntil[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Память под массивы таблицы в байтах вместе с заголовками массивов.
+     */
+    long bytes() {
+        long arrays = 8L * cardIds.length + 8L * loadedAt.length + 4L * validUntil.length
+                + 4L * prev.length + 4L * next.length + limitCounts.length
+                + periodTypes.length + 4L * periodStarts.length
+                + 8L * limitAmounts.length + 8L * spent.length
+                + 4L * index.length;
+        return arrays + 12 * 16L;
+    }
+
+    private int home(long cardId) {
+        long hash = cardId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Удаляет слот из индекса, сдвигая назад следующие записи цепочки проб,
+     * чтобы поиск не останавливался на образовавшейся дыре.
+     */
+    private void unindex(int slot) {
+        int i = home(cardIds[slot]);
+        while (index[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        for (int j = (i + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int k = home(cardIds[index[j] - 1]);
+            boolean reachable = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+            if (!reachable) {
+                index[i] = index[j];
+                i = j;
+            }
+        }
+        index[i] = 0;
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            head = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        } else {
+            tail = prev[slot];
+        }
+    }
+
+    private void linkHead(int slot) {
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            prev[head] = slot;
+        }
+        head = slot;
+        if (tail == NONE) {
+            tail = slot;
+        }
+    }
+}
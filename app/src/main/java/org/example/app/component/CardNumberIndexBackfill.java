@@ -0,0 +1,90 @@
+package org.example.app.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.exception.CryptoException;
+import org.example.app.model.Card;
+import org.example.app.repository.CardRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Заполняет слепой индекс и последние цифры номера для карт, созданных
+ * до появления этих колонок. Карты обрабатываются порциями, каждая
+ * порция - отдельная транзакция. Если порция упала на дубле номера,
+ * она повторяется по одной карте, и пропускаются только карты-дубли.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardNumberIndexBackfill {
+    private final CardRepository cardRepository;
+    private final CryptoEncoder encoder;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long afterId = 0L;
+        int updated = 0;
+        while (true) {
+            long from = afterId;
+            List<Card> cards;
+            try {
+                cards = transactionTemplate.execute(status -> {
+                    List<Card> batch = cardRepository.findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(from);
+                    batch.forEach(this::index);
+                    return batch;
+                });
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Card number index batch after card {} failed, retrying card by card", from);
+                cards = indexOneByOne(from);
+            }
+            if (cards == null || cards.isEmpty()) {
+                break;
+            }
+            updated += (int) cards.stream().filter(card -> card.getCardNumberHash() != null).count();
+            afterId = cards.get(cards.size() - 1).getId();
+        }
+        if (updated > 0) {
+            log.info("Card number index filled for {} cards", updated);
+        }
+    }
+
+    private List<Card> indexOneByOne(long from) {
+        List<Card> batch = transactionTemplate.execute(status ->
+                cardRepository.findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(from));
+        if (batch == null) {
+            return List.of();
+        }
+        for (Card card : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    index(card);
+                    cardRepository.saveAndFlush(card);
+                });
+            } catch (DataIntegrityViolationException e) {
+                // В старых данных есть дубли номеров - разбирать вручную, остальные карты индексируются
+                log.error("Cannot index card number of card {}: duplicate card number", card.getId(), e);
+                card.setCardNumberHash(null);
+                card.setCardLast4(null);
+            }
+        }
+        return batch;
+    }
+
+    private void index(Card card) {
+        try {
+            String cardNumber = CardNumbers.normalize(encoder.decrypt(card.getCardNumber()));
+            card.setCardNumberHash(encoder.hash(cardNumber));
+            card.setCardLast4(CardNumbers.last4(cardNumber));
+        } catch (CryptoException e) {
+            // Такую карту не расшифровать, пропускаем её, чтобы не остановить заполнение
+            log.warn("Cannot index card number of card {}", card.getId());
+        }
+    }
+}
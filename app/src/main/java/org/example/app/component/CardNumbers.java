@@ -0,0 +1,22 @@
+package org.example.app.component;
+
+/**
+ * Нормализация номера карты перед шифрованием и построением индекса.
+ */
+public final class CardNumbers {
+    private CardNumbers() {
+    }
+
+    // Убираем пробелы и дефисы, чтобы "4000 0000 0000 0002" и "4000000000000002" давали один хэш
+    public static String normalize(String cardNumber) {
+        return cardNumber == null ? null : cardNumber.replaceAll("[\\s-]", "");
+    }
+
+    public static String last4(String cardNumber) {
+        String normalized = normalize(cardNumber);
+        if (normalized == null || normalized.length() < 4) {
+            return null;
+        }
+        return normalized.substring(normalized.length() - 4);
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.app.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.exception.CryptoException;
+import org.example.app.model.ReencryptionCheckpoint;
+import org.example.app.repository.CardNumberCipher;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.ReencryptionCheckpointRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Фоновое перешифрование номеров карт активным ключом после ротации.
+ * Карты обходятся порциями по возрастанию id, каждая порция вместе с
+ * контрольной точкой фиксируется отдельной короткой транзакцией, поэтому
+ * после рестарта проход продолжается с места остановки. Скорость ограничена
+ * {@code encryption.reencryption.max-rows-per-second}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardReencryptionJob {
+    static final String JOB_NAME = "cards.card_number";
+
+    private final CardRepository cardRepository;
+    private final ReencryptionCheckpointRepository checkpointRepository;
+    private final CryptoEncoder encoder;
+    private final EncryptionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${encryption.reencryption.interval:PT1M}",
+            initialDelayString = "${encryption.reencryption.interval:PT1M}")
+    public void run() {
+        EncryptionProperties.Reencryption settings = properties.getReencryption();
+        String keyId = encoder.getActiveKeyId();
+        if (!settings.isEnabled() || keyId == null) {
+            return;
+        }
+
+        ReencryptionCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                .filter(saved -> saved.getKeyId().equals(keyId))
+                .orElseGet(() -> newCheckpoint(keyId));
+        if (checkpoint.isCompleted()) {
+            return;
+        }
+
+        int chunkSize = Math.max(1, settings.getChunkSize());
+        long chunkMillis = 1000L * chunkSize / Math.max(1, settings.getMaxRowsPerSecond());
+        int reencrypted = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            long started = System.currentTimeMillis();
+            Integer processed = transactionTemplate.execute(status -> processChunk(checkpoint, chunkSize));
+            if (processed == null || processed < 0) {
+                break;
+            }
+            reencrypted += processed;
+            pause(chunkMillis - (System.currentTimeMillis() - started));
+        }
+
+        log.info("Card numbers re-encrypted with key {}: {}, checkpoint at card {}",
+                keyId, reencrypted, checkpoint.getLastId());
+    }
+
+    /**
+     * @return число перешифрованных карт или -1, если проход закончен
+     */
+    private int processChunk(ReencryptionCheckpoint checkpoint, int chunkSize) {
+        List<CardNumberCipher> rows = cardRepository.findCardNumbersAfter(
+                checkpoint.getLastId(), PageRequest.of(0, chunkSize));
+
+        int reencrypted = 0;
+        for (CardNumberCipher row : rows) {
+            if (!encoder.needsReencryption(row.getCardNumber())) {
+                continue;
+            }
+            try {
+                String cardNumber = encoder.reencrypt(row.getCardNumber());
+                reencrypted += cardRepository.replaceCardNumber(row.getId(), row.getCardNumber(), cardNumber);
+            } catch (CryptoException e) {
+                log.warn("Cannot re-encrypt card number of card {}", row.getId());
+            }
+        }
+
+        if (rows.isEmpty()) {
+            checkpoint.setCompleted(true);
+        } else {
+            checkpoint.setLastId(rows.get(rows.size() - 1).getId());
+        }
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+
+        return rows.isEmpty() ? -1 : reencrypted;
+    }
+
+    private ReencryptionCheckpoint newCheckpoint(String keyId) {
+        ReencryptionCheckpoint checkpoint = new ReencryptionCheckpoint();
+        checkpoint.setJobName(JOB_NAME);
+        checkpoint.setKeyId(keyId);
+        checkpoint.setLastId(0L);
+        checkpoint.setCompleted(false);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return checkpoint;
+    }
+
+    private void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,26 +1,68 @@
 package org.example.app.component;
 
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.example.app.exception.CryptoException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
+/**
+ * Шифрование номеров карт AES-GCM со связкой ключей. Новые значения пишутся
+ * в конверте {@code v1:<keyId>:<base64(IV + шифротекст)>} активным ключом,
+ * значения без конверта расшифровываются ключом {@code encryption.secret}.
+ */
 @Component
+@RequiredArgsConstructor
 public class CryptoEncoder {
     private static final String ALGORITHM = "AES/GCM/NoPadding";
     private static final int GCM_TAG_LENGTH = 128; // бит
+    private static final int GCM_TAG_BYTES = GCM_TAG_LENGTH / 8;
     private static final int IV_LENGTH = 12; // байт
+    private static final String INDEX_ALGORITHM = "HmacSHA256";
+    private static final String ENVELOPE_VERSION = "v1";
+    private static final char ENVELOPE_SEPARATOR = ':';
+    private static final Pattern KEY_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    // Cipher и Mac не потокобезопасны, поэтому экземпляры берутся из пула на время вызова
+    private static final Pool<Cipher> CIPHERS = new Pool<>(() -> newInstance(Cipher::getInstance, ALGORITHM));
+
+    // SecureRandom потокобезопасен, одного экземпляра достаточно
+    private final SecureRandom random = new SecureRandom();
+
+    private final EncryptionProperties properties;
+    private final BankMetrics metrics;
 
     @Value("${encryption.secret}")
     private String secretKey;
 
+    // Отдельный ключ для слепого индекса, чтобы не переиспользовать ключ шифрования
+    @Value("${encryption.index-secret}")
+    private String indexKey;
+
+    private SecretKeySpec legacyKey;
+    private final Map<String, SecretKeySpec> keyring = new HashMap<>();
+    private String activeKeyId;
+    private SecretKeySpec activeKey;
+    private String activePrefix;
+    private Pool<Mac> macs;
+
     @PostConstruct
     public void validateKey() {
         if (secretKey == null || secretKey.length() != 32) {
@@ -28,54 +70,183 @@ public class CryptoEncoder {
                     "Encryption key must be 32 characters (256 bits) long. " +
                             "Check 'encryption.secret' in your configuration");
         }
-    }
+        if (indexKey == null || indexKey.length() < 32 || indexKey.equals(secretKey)) {
+            throw new IllegalStateException(
+                    "Index key must be at least 32 characters long and differ from the encryption key. " +
+                            "Check 'encryption.index-secret' in your configuration");
+        }
 
-    public String encrypt(String data) {
-        try {
-            byte[] iv = generateIv();
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "AES");
+        // Ключи выводятся один раз, а не на каждый вызов
+        legacyKey = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "AES");
+        properties.getKeys().forEach((id, secret) -> {
+            if (!KEY_ID.matcher(id).matches() || secret == null || secret.length() != 32) {
+                throw new IllegalStateException(
+                        "Key '" + id + "' must have an alphanumeric id and a 32 characters secret. " +
+                                "Check 'encryption.keys' in your configuration");
+            }
+            keyring.put(id, new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "AES"));
+        });
 
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, spec);
-            byte[] encrypted = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        activeKeyId = properties.getActiveKeyId() == null || properties.getActiveKeyId().isBlank()
+                ? null
+                : properties.getActiveKeyId();
+        if (activeKeyId == null) {
+            activeKey = legacyKey;
+            activePrefix = "";
+        } else {
+            activeKey = keyring.get(activeKeyId);
+            if (activeKey == null) {
+                throw new IllegalStateException(
+                        "Active key '" + activeKeyId + "' is not in 'encryption.keys'");
+            }
+            activePrefix = ENVELOPE_VERSION + ENVELOPE_SEPARATOR + activeKeyId + ENVELOPE_SEPARATOR;
+        }
 
-            // Объединяем IV + зашифрованные данные
-            byte[] combined = new byte[iv.length + encrypted.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+        SecretKeySpec indexKeySpec = new SecretKeySpec(indexKey.getBytes(StandardCharsets.UTF_8), INDEX_ALGORITHM);
+        macs = new Pool<>(() -> {
+            Mac mac = newInstance(Mac::getInstance, INDEX_ALGORITHM);
+            try {
+                mac.init(indexKeySpec);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + INDEX_ALGORITHM, e);
+            }
+            return mac;
+        });
+    }
 
-            return Base64.getEncoder().encodeToString(combined);
+    /**
+     * Детерминированный HMAC-SHA256 от значения - слепой индекс для поиска
+     * по равенству без расшифровки.
+     */
+    public String hash(String data) {
+        Mac mac = macs.borrow();
+        try {
+            // doFinal сбрасывает Mac, повторная инициализация не нужна
+            return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
-            throw new CryptoException("Encryption failed");
+            throw new CryptoException("Hashing failed");
+        } finally {
+            macs.release(mac);
         }
     }
 
+    public String encrypt(String data) {
+        return metrics.encryptTimer().record(() -> encryptValue(data));
+    }
+
     public String decrypt(String encryptedData) {
+        return metrics.decryptTimer().record(() -> decryptValue(encryptedData));
+    }
+
+    private String encryptValue(String data) {
+        Cipher cipher = CIPHERS.borrow();
         try {
-            byte[] combined = Base64.getDecoder().decode(encryptedData);
+            byte[] plain = data.getBytes(StandardCharsets.UTF_8);
+            // IV + шифротекст + тег пишутся в один буфер, без промежуточных массивов
+            byte[] combined = new byte[IV_LENGTH + plain.length + GCM_TAG_BYTES];
             byte[] iv = new byte[IV_LENGTH];
-            byte[] encrypted = new byte[combined.length - IV_LENGTH];
+            random.nextBytes(iv);
+            ByteBuffer output = ByteBuffer.wrap(combined).put(iv);
 
-            System.arraycopy(combined, 0, iv, 0, iv.length);
-            System.arraycopy(combined, iv.length, encrypted, 0, encrypted.length);
+            cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.doFinal(ByteBuffer.wrap(plain), output);
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "AES");
+            return activePrefix + Base64.getEncoder().encodeToString(combined);
+        } catch (Exception e) {
+            throw new CryptoException("Encryption failed");
+        } finally {
+            CIPHERS.release(cipher);
+        }
+    }
 
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, spec);
-            byte[] decrypted = cipher.doFinal(encrypted);
+    private String decryptValue(String encryptedData) {
+        Cipher cipher = CIPHERS.borrow();
+        try {
+            SecretKeySpec key = legacyKey;
+            String payload = encryptedData;
+            if (encryptedData.startsWith(ENVELOPE_VERSION + ENVELOPE_SEPARATOR)) {
+                int end = encryptedData.indexOf(ENVELOPE_SEPARATOR, ENVELOPE_VERSION.length() + 1);
+                key = keyring.get(encryptedData.substring(ENVELOPE_VERSION.length() + 1, end));
+                payload = encryptedData.substring(end + 1);
+            }
+            byte[] combined = Base64.getDecoder().decode(payload);
+
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, combined, 0, IV_LENGTH));
+            // Расшифровываем на месте: открытый текст короче шифротекста и пишется в начало того же массива
+            ByteBuffer input = ByteBuffer.wrap(combined, IV_LENGTH, combined.length - IV_LENGTH);
+            ByteBuffer output = ByteBuffer.wrap(combined);
+            int length = cipher.doFinal(input, output);
 
-            return new String(decrypted, StandardCharsets.UTF_8);
+            return new String(combined, 0, length, StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new CryptoException("Decryption failed");
+        } finally {
+            CIPHERS.release(cipher);
+        }
+    }
+
+    /**
+     * @return {@code true}, если значение зашифровано не активным ключом
+     */
+    public boolean needsReencryption(String encryptedData) {
+        if (activeKeyId == null) {
+            return encryptedData.startsWith(ENVELOPE_VERSION + ENVELOPE_SEPARATOR);
+        }
+        return !encryptedData.startsWith(activePrefix);
+    }
+
+    public String reencrypt(String encryptedData) {
+        return encrypt(decrypt(encryptedData));
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    private static <T> T newInstance(Factory<T> factory, String algorithm) {
+        try {
+            return factory.create(algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Algorithm " + algorithm + " is not available", e);
         }
     }
 
-    private byte[] generateIv() {
-        byte[] iv = new byte[IV_LENGTH];
-        new SecureRandom().nextBytes(iv);
-        return iv;
+    @FunctionalInterface
+    private interface Factory<T> {
+        T create(String algorithm) throws GeneralSecurityException;
+    }
+
+    /**
+     * Пул экземпляров вместо ThreadLocal: виртуальные потоки не переиспользуются,
+     * и ThreadLocal создавал бы новый экземпляр на каждый запрос. Вызовы не блокируются,
+     * поэтому одновременно занято не больше экземпляров, чем ядер, лишние не хранятся.
+     */
+    private static final class Pool<T> {
+        private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+        private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final Supplier<T> factory;
+
+        private Pool(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        T borrow() {
+            T instance = idle.poll();
+            if (instance == null) {
+                return factory.get();
+            }
+            idleCount.decrementAndGet();
+            return instance;
+        }
+
+        void release(T instance) {
+            if (idleCount.incrementAndGet() <= MAX_IDLE) {
+                idle.offer(instance);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
     }
 }
@@ -0,0 +1,35 @@
+package org.example.app.component;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "encryption")
+public class EncryptionProperties {
+    // Связка ключей: id ключа -> секрет. Расшифровка возможна любым известным ключом
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    // Ключ для новых шифротекстов. Пустое значение - старый формат без id ключа на encryption.secret
+    private String activeKeyId;
+
+    private Reencryption reencryption = new Reencryption();
+
+    @Getter
+    @Setter
+    public static class Reencryption {
+        private boolean enabled = true;
+        private int chunkSize = 200;
+        // Верхняя граница нагрузки на живой трафик
+        private int maxRowsPerSecond = 500;
+        // Пауза между проходами по таблице карт
+        private Duration interval = Duration.ofMinutes(1);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.app.component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.example.app.model.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Дописывает события в NDJSON файл, по строке на событие. Порция сбрасывается
+ * на диск до того, как relay сдвинет позицию.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "outbox.sink", name = "type", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        Path path = properties.getSink().getFilePath();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            StringBuilder lines = new StringBuilder();
+            for (OutboxEvent event : events) {
+                ObjectNode line = objectMapper.createObjectNode();
+                line.put("id", event.getId());
+                line.put("partition", event.getPartitionNo());
+                line.put("type", event.getEventType());
+                line.put("aggregateId", event.getAggregateId());
+                line.put("createdAt", event.getCreatedAt().toString());
+                line.set("payload", objectMapper.readTree(event.getPayload()));
+                lines.append(objectMapper.writeValueAsString(line)).append('\n');
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write outbox events to " + path, e);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package org.example.app.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.model.Limit;
+import org.example.app.model.PeriodType;
+import org.example.app.model.SpendCounterId;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Счётчики лимитов часто проверяемых карт в памяти процесса. Состояние карты
+ * читается из базы при первой проверке, дальше проверка не ходит в базу, а
+ * изменения счётчиков применяются после коммита транзакции, которая их записала.
+ * Карты разложены по сегментам {@link CardLimitTable} с отдельными блокировками.
+ * Состояние не сохраняется и после перезапуска заново читается из базы.
+ * Суммы хранятся в копейках, как в колонках DECIMAL(19,2).
+ */
+@Slf4j
+@Component
+public class HotCardLimitEngine {
+    private static final PeriodType[] PERIOD_TYPES = PeriodType.values();
+
+    private final LimitRepository limitRepository;
+    private final SpendCounterRepository spendCounterRepository;
+    private final PeriodWindows periodWindows;
+    private final long refreshAfterNanos;
+    private final Segment[] segments;
+    private final Counter hits;
+    private final Counter misses;
+
+    public HotCardLimitEngine(HotCardLimitProperties properties, LimitRepository limitRepository,
+                              SpendCounterRepository spendCounterRepository, PeriodWindows periodWindows,
+                              MeterRegistry registry) {
+        this.limitRepository = limitRepository;
+        this.spendCounterRepository = spendCounterRepository;
+        this.periodWindows = periodWindows;
+        this.refreshAfterNanos = properties.getRefreshAfter().toNanos();
+
+        int segmentCount = properties.isEnabled() ? Math.max(1, properties.getSegments()) : 0;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(Math.max(1, (properties.getMaxCards() + segmentCount - 1) / segmentCount));
+        }
+
+        hits = Counter.builder("bank.limits.hot_cards.lookups")
+                .description("Limit checks answered from memory")
+                .tag("result", "hit")
+                .register(registry);
+        misses = Counter.builder("bank.limits.hot_cards.lookups")
+                .description("Limit checks that read the card state from the database")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("bank.limits.hot_cards.size", this, HotCardLimitEngine::size)
+                .description("Cards whose limit state is held in memory")
+                .register(registry);
+        Gauge.builder("bank.limits.hot_cards.memory", this, HotCardLimitEngine::bytes)
+                .description("Memory allocated for the in-memory limit state")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("bank.limits.hot_cards.evictions", this, HotCardLimitEngine::evictions)
+                .description("Cards evicted from memory as least recently used")
+                .register(registry);
+
+        if (isEnabled()) {
+            log.info("In-memory card limits: {} cards in {} segments, {} bytes",
+                    properties.getMaxCards(), segmentCount, bytes());
+        }
+    }
+
+    public boolean isEnabled() {
+        return segments.length > 0;
+    }
+
+    /**
+     * Проверяет списание по лимитам карты.
+     *
+     * @return тип первого превышенного лимита, null - списание в пределах лимитов
+     */
+    public PeriodType findExceeded(Long cardId, BigDecimal amount) {
+        Segment segment = segment(cardId);
+        long cents = toCents(amount);
+        // Сумма с долями копейки сравнивается точно по состоянию из базы
+        boolean exact = amount.compareTo(BigDecimal.valueOf(cents, 2)) == 0;
+        long now = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        int day = (int) today.toEpochDay();
+
+        long completed;
+        boolean cacheable;
+        segment.lock.lock();
+        try {
+            int slot = segment.table.find(cardId);
+            // После смены окна какого-то лимита состояние карты читается заново. Пока изменения
+            // сегмента коммитятся, в базе они уже могут быть видны, а в памяти ещё нет
+            if (exact && slot != CardLimitTable.NONE && now - segment.table.loadedAt(slot) < refreshAfterNanos
+                    && day < segment.table.validUntil(slot) && segment.committing == 0) {
+                segment.table.touch(slot);
+                hits.increment();
+                int exceeded = segment.table.exceeded(slot, cents);
+                return exceeded == CardLimitTable.NONE ? null : PERIOD_TYPES[exceeded];
+            }
+            completed = segment.completed;
+            cacheable = segment.committing == 0;
+        } finally {
+            segment.lock.unlock();
+        }
+
+        misses.increment();
+        CardState state = load(cardId, today);
+        List<LoadedLimit> limits = state.limits();
+        if (cacheable && limits.size() <= CardLimitTable.MAX_LIMITS && !hasPendingChanges(cardId)) {
+            segment.lock.lock();
+            try {
+                // Если за время чтения закоммитились изменения сегмента, прочитанное могло их
+                // не увидеть или увидеть дважды вместе с применением после коммита
+                if (segment.completed == completed && segment.committing == 0) {
+                    int slot = segment.table.put(cardId, now, state.validUntil());
+                    for (LoadedLimit limit : limits) {
+                        segment.table.addLimit(slot, limit.periodType().ordinal(), limit.periodStart(),
+                                toCents(limit.limitAmount()), toCents(limit.spent()));
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+
+        for (LoadedLimit limit : limits) {
+            if (limit.spent().add(amount).compareTo(limit.limitAmount()) >= 0) {
+                return limit.periodType();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Запоминает изменение счётчика лимита. В память оно попадёт после коммита текущей транзакции.
+     */
+    public void counterChanged(SpendCounterId key, BigDecimal amount) {
+        if (isEnabled()) {
+            pendingChanges(key.getCardId()).changes.add(new CounterChange(key.getCardId(),
+                    key.getPeriodType().ordinal(), (int) key.getPeriodStart().toEpochDay(), toCents(amount)));
+        }
+    }
+
+    /**
+     * Убирает карту из памяти после завершения текущей транзакции, например после изменения лимитов.
+     */
+    public void invalidate(Long cardId) {
+        if (isEnabled()) {
+            pendingChanges(cardId).invalidated.add(cardId);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.table.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public long bytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.table.bytes();
+        }
+        return bytes;
+    }
+
+    private long evictions() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                evictions += segment.table.evictions();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return evictions;
+    }
+
+    private CardState load(Long cardId, LocalDate today) {
+        List<LoadedLimit> limits = new ArrayList<>();
+        int validUntil = Integer.MAX_VALUE;
+        for (Limit limit : limitRepository.findByCardId(cardId)) {
+            if (!limit.isActive()) {
+                continue;
+            }
+            if (limit.getPeriodType() == PeriodType.PER_TRANSACTION) {
+                // Счётчика нет, изменения к такому лимиту не применяются
+                limits.add(new LoadedLimit(limit.getPeriodType(), Integer.MIN_VALUE,
+                        limit.getLimitAmount(), BigDecimal.ZERO));
+                continue;
+            }
+            PeriodWindow window = periodWindows.current(limit, today);
+            if (window == null) {
+                // Лимит начнёт действовать с даты начала
+                validUntil = Math.min(validUntil, (int) limit.getPeriodStartDate().toEpochDay());
+                continue;
+            }
+            BigDecimal spent = spendCounterRepository
+                    .findAmount(cardId, limit.getPeriodType(), window.start())
+                    .orElse(BigDecimal.ZERO);
+            limits.add(new LoadedLimit(limit.getPeriodType(), (int) window.start().toEpochDay(),
+                    limit.getLimitAmount(), spent));
+            validUntil = Math.min(validUntil, (int) window.end().toEpochDay());
+        }
+        return new CardState(limits, validUntil);
+    }
+
+    /**
+     * Изменения копятся в синхронизации транзакции. Синхронизации приостанавливаются
+     * вместе с транзакцией, поэтому вложенная REQUIRES_NEW получит свою.
+     */
+    private PendingChanges pendingChanges(Long cardId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Limit counters of card " + cardId + " changed outside of a transaction");
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.engine() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    // Свои незакоммиченные изменения текущая транзакция видит в базе, кэшировать их нельзя
+    private boolean hasPendingChanges(Long cardId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.engine() == this
+                    && pending.touches(cardId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Segment segment(long cardId) {
+        return segments[(int) Math.floorMod(cardId, (long) segments.length)];
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final CardLimitTable table;
+        // Транзакции с изменениями карт сегмента, которые уже коммитятся, но ещё не применены
+        private int committing;
+        // Сколько таких транзакций завершилось
+        private long completed;
+
+        private Segment(int capacity) {
+            this.table = new CardLimitTable(capacity);
+        }
+    }
+
+    private record CardState(List<LoadedLimit> limits, int validUntil) {
+    }
+
+    private record LoadedLimit(PeriodType periodType, int periodStart,
+                               BigDecimal limitAmount, BigDecimal spent) {
+    }
+
+    private record CounterChange(long cardId, int periodType, int periodStart, long amount) {
+    }
+
+    /**
+     * Изменения одной транзакции. До коммита в базе сегменты помечаются как коммитящиеся,
+     * чтобы параллельная загрузка карты не закэшировала состояние, в котором этот
+     * коммит уже виден, а изменения будут применены ещё раз.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+        private final List<CounterChange> changes = new ArrayList<>();
+        private final Set<Long> invalidated = new TreeSet<>();
+        private Set<Segment> committing = Set.of();
+
+        private HotCardLimitEngine engine() {
+            return HotCardLimitEngine.this;
+        }
+
+        private boolean touches(Long cardId) {
+            return invalidated.contains(cardId) || changes.stream().anyMatch(change -> change.cardId() == cardId);
+        }
+
+        @Override
+        public void beforeCompletion() {
+            Set<Segment> touched = new HashSet<>();
+            changes.forEach(change -> touched.add(segment(change.cardId())));
+            invalidated.forEach(cardId -> touched.add(segment(cardId)));
+            for (Segment segment : touched) {
+                segment.lock.lock();
+                try {
+                    segment.committing++;
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+            committing = touched;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            for (Segment segment : committing) {
+                segment.lock.lock();
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        for (CounterChange change : changes) {
+                            int slot = segment(change.cardId()) == segment
+                                    ? segment.table.find(change.cardId()) : CardLimitTable.NONE;
+                            if (slot != CardLimitTable.NONE) {
+                                segment.table.add(slot, change.periodType(), change.periodStart(), change.amount());
+                            }
+                        }
+                    }
+                    // После отката ничего применять не нужно, при неизвестном исходе состояние перечитывается
+                    if (status == STATUS_UNKNOWN) {
+                        changes.stream()
+                                .filter(change -> segment(change.cardId()) == segment)
+                                .forEach(change -> remove(segment, change.cardId()));
+                    }
+                    invalidated.stream()
+                            .filter(cardId -> segment(cardId) == segment)
+                            .forEach(cardId -> remove(segment, cardId));
+                    segment.committing--;
+                    segment.completed++;
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+        }
+
+        private void remove(Segment segment, long cardId) {
+            int slot = segment.table.find(cardId);
+            if (slot != CardLimitTable.NONE) {
+                segment.table.remove(slot);
+            }
+        }
+    }
+}
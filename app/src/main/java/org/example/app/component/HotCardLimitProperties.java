@@ -0,0 +1,27 @@
+package org.example.app.component;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "limits.hot-cards")
+public class HotCardLimitProperties {
+    // Проверка лимитов по счётчикам в памяти вместо чтения из базы
+    private boolean enabled = false;
+
+    // Сколько карт держать в памяти, остальные вытесняются по давности обращения
+    private int maxCards = 100_000;
+
+    // Число независимо блокируемых сегментов
+    private int segments = 16;
+
+    // Через сколько состояние карты перечитывается из базы. Ограничивает расхождение
+    // со списаниями, прошедшими через другие экземпляры приложения
+    private Duration refreshAfter = Duration.ofMinutes(1);
+}
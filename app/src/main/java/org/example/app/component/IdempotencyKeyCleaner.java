@@ -0,0 +1,41 @@
+package org.example.app.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Удаляет истёкшие ключи идемпотентности порциями в отдельных транзакциях.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyCleaner {
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${idempotency.purge-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT1H}",
+            initialDelayString = "${idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status -> idempotencyRecordRepository.deleteExpired(now, batchSize));
+            deleted += batch == null ? 0 : batch;
+        } while (batch != null && batch == batchSize);
+
+        if (deleted > 0) {
+            log.info("Expired idempotency keys deleted: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.app.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.model.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Пишет события в отдельный логгер {@code outbox}.
+ */
+@Slf4j(topic = "outbox")
+@Component
+@ConditionalOnProperty(prefix = "outbox.sink", name = "type", havingValue = "log", matchIfMissing = true)
+public class LogOutboxSink implements OutboxSink {
+
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.info("{} {} {} {} {}", event.getPartitionNo(), event.getId(), event.getEventType(),
+                    event.getAggregateId(), event.getPayload());
+        }
+    }
+}
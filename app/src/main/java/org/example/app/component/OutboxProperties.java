@@ -0,0 +1,39 @@
+package org.example.app.component;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+    // Число партиций. При изменении события одной карты окажутся в разных партициях
+    private int partitions = 16;
+
+    // Сколько хранятся события, прочитанные всеми потребителями
+    private Duration retention = Duration.ofDays(7);
+
+    private Relay relay = new Relay();
+    private Sink sink = new Sink();
+
+    @Getter
+    @Setter
+    public static class Relay {
+        private Duration interval = Duration.ofSeconds(1);
+        private int batchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Sink {
+        // log, file или имя собственной реализации OutboxSink
+        private String type = "log";
+        private Path filePath = Path.of("outbox", "events.ndjson");
+    }
+}
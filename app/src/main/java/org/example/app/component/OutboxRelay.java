@@ -0,0 +1,49 @@
+package org.example.app.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.service.OutboxService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Переносит события outbox в {@link OutboxSink} порциями по партициям.
+ * Позиция хранится отдельно для каждой партиции, сбой одной партиции
+ * не задерживает остальные.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+    private final OutboxService outboxService;
+    private final OutboxSink sink;
+    private final OutboxProperties properties;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:PT1S}")
+    public void relay() {
+        String consumer = "relay:" + sink.name();
+        int batchSize = properties.getRelay().getBatchSize();
+
+        for (int partition = 0; partition < properties.getPartitions(); partition++) {
+            try {
+                int sent;
+                do {
+                    sent = outboxService.consume(consumer, partition, batchSize, sink::publish);
+                } while (sent == batchSize);
+            } catch (RuntimeException e) {
+                log.error("Outbox relay to {} failed on partition {}", sink.name(), partition, e);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${outbox.purge-cron:0 15 * * * *}")
+    public void purge() {
+        int deleted = 0;
+        for (int partition = 0; partition < properties.getPartitions(); partition++) {
+            deleted += outboxService.purgeDelivered(partition);
+        }
+        if (deleted > 0) {
+            log.info("Delivered outbox events deleted: {}", deleted);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.app.component;
+
+import org.example.app.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Получатель событий outbox. Порция передаётся в порядке id внутри одной партиции,
+ * позиция сдвигается только после успешного возврата, поэтому доставка
+ * "хотя бы один раз" и получатель должен быть готов к повтору по id события.
+ */
+public interface OutboxSink {
+    String name();
+
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,12 @@
+package org.example.app.component;
+
+import java.time.LocalDate;
+
+/**
+ * Окно периода лимита [start, end), за которое копятся списания.
+ */
+public record PeriodWindow(LocalDate start, LocalDate end) {
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(start) && date.isBefore(end);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.app.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.app.model.Limit;
+import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Вычисляет текущее окно лимита. Окно лимита кэшируется по id и пересчитывается,
+ * только когда дата вышла за его границы или у лимита изменились период,
+ * выравнивание или дата начала.
+ */
+@Component
+public class PeriodWindows {
+    private final Cache<Long, CachedWindow> cache;
+
+    public PeriodWindows(@Value("${limits.windows.cache-size:100000}") long cacheSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * @return окно лимита, содержащее дату, или null, если лимит не копит сумму
+     * ({@link PeriodType#PER_TRANSACTION}) или дата раньше начала лимита
+     */
+    public PeriodWindow current(Limit limit, LocalDate date) {
+        if (limit.getId() == null) {
+            return windowOf(limit.getPeriodType(), limit.getWindowAlignment(), limit.getPeriodStartDate(), date);
+        }
+
+        CachedWindow cached = cache.getIfPresent(limit.getId());
+        if (cached != null && cached.matches(limit) && cached.window().contains(date)) {
+            return cached.window();
+        }
+        PeriodWindow window = windowOf(limit.getPeriodType(), limit.getWindowAlignment(),
+                limit.getPeriodStartDate(), date);
+        if (window != null) {
+            cache.put(limit.getId(), new CachedWindow(limit.getPeriodType(), limit.getWindowAlignment(),
+                    limit.getPeriodStartDate(), window));
+        }
+        return window;
+    }
+
+    public static PeriodWindow windowOf(PeriodType periodType, WindowAlignment alignment,
+                                        LocalDate anchor, LocalDate date) {
+        if (periodType == PeriodType.PER_TRANSACTION || date.isBefore(anchor)) {
+            return null;
+        }
+        return alignment == WindowAlignment.CALENDAR
+                ? calendar(periodType, anchor, date)
+                : anchored(periodType, anchor, date);
+    }
+
+    private static PeriodWindow anchored(PeriodType periodType, LocalDate anchor, LocalDate date) {
+        return switch (periodType) {
+            case DAILY -> new PeriodWindow(date, date.plusDays(1));
+            case WEEKLY -> {
+                LocalDate start = anchor.plusWeeks(ChronoUnit.DAYS.between(anchor, date) / 7);
+                yield new PeriodWindow(start, start.plusWeeks(1));
+            }
+            case MONTHLY -> {
+                // Окна считаются от даты начала, чтобы 31-е число не сползало на 28-е после февраля
+                long months = ChronoUnit.MONTHS.between(YearMonth.from(anchor), YearMonth.from(date));
+                if (anchor.plusMonths(months).isAfter(date)) {
+                    months--;
+                }
+                yield new PeriodWindow(anchor.plusMonths(months), anchor.plusMonths(months + 1));
+            }
+            case PER_TRANSACTION -> throw new IllegalArgumentException("Per-transaction limit has no window");
+        };
+    }
+
+    // Первое календарное окно начинается с даты начала лимита, а не раньше
+    private static PeriodWindow calendar(PeriodType periodType, LocalDate anchor, LocalDate date) {
+        PeriodWindow window = switch (periodType) {
+            case DAILY -> new PeriodWindow(date, date.plusDays(1));
+            case WEEKLY -> {
+                LocalDate monday = date.with(DayOfWeek.MONDAY);
+                yield new PeriodWindow(monday, monday.plusWeeks(1));
+            }
+            case MONTHLY -> {
+                LocalDate first = date.withDayOfMonth(1);
+                yield new PeriodWindow(first, first.plusMonths(1));
+            }
+            case PER_TRANSACTION -> throw new IllegalArgumentException("Per-transaction limit has no window");
+        };
+        return window.start().isBefore(anchor) ? new PeriodWindow(anchor, window.end()) : window;
+    }
+
+    private record CachedWindow(PeriodType periodType, WindowAlignment alignment, LocalDate anchor,
+                                PeriodWindow window) {
+        boolean matches(Limit limit) {
+            return periodType == limit.getPeriodType()
+                    && alignment == limit.getWindowAlignment()
+                    && anchor.equals(limit.getPeriodStartDate());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.app.component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Периодически замеряет отставание реплики. Пока замер не удался или отставание
+ * больше {@code datasource.replica.max-lag}, read-only транзакции идут на primary.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaLagMonitor {
+    // Реплика, догнавшая primary, не отстаёт, даже если последняя транзакция была давно
+    private static final String LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final ReplicaProperties properties;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                             ReplicaProperties properties, MeterRegistry registry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.properties = properties;
+        Gauge.builder("bank.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read replica, NaN when it is unavailable")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:PT1S}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lagSeconds = lag == null ? 0 : lag;
+            usable = lagSeconds * 1000 <= properties.getMaxLag().toMillis();
+        } catch (RuntimeException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+        }
+
+        if (wasUsable != usable) {
+            log.warn("Read replica {}, lag {}s", usable ? "is used for read-only transactions" : "is bypassed",
+                    lagSeconds);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.app.component;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "datasource.replica")
+public class ReplicaProperties {
+    // Без реплики все запросы идут в spring.datasource
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+
+    // Допустимое отставание реплики, при большем read-only транзакции идут на primary
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,63 @@
+package org.example.app.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.example.app.service.LimitService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Периодически сверяет счётчики лимитов с таблицей транзакций.
+ * Каждая карта пересчитывается в отдельной транзакции.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpendCounterReconciler implements SmartInitializingSingleton {
+    public static final String REBUILD_TASK = "rebuild-spend-counters";
+
+    private final LimitService limitService;
+    private final LimitRepository limitRepository;
+    private final SpendCounterRepository spendCounterRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${limits.counters.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    /**
+     * Пересчитывает счётчики при старте, до того как приложение начнёт принимать запросы:
+     * по настройке или если миграция поставила задачу пересчёта в startup_tasks.
+     * Задача снимается только после пересчёта, при сбое он повторится на следующем старте.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Integer requested = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM startup_tasks WHERE task = ?", Integer.class, REBUILD_TASK);
+        boolean rebuildRequested = requested != null && requested > 0;
+        if (rebuildOnStartup || rebuildRequested) {
+            reconcile();
+        }
+        if (rebuildRequested) {
+            jdbcTemplate.update("DELETE FROM startup_tasks WHERE task = ?", REBUILD_TASK);
+        }
+    }
+
+    @Scheduled(cron = "${limits.counters.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        Set<Long> cardIds = new TreeSet<>(limitRepository.findCardIdsWithActiveLimits());
+        cardIds.addAll(spendCounterRepository.findAllCardIds());
+
+        for (Long cardId : cardIds) {
+            limitService.rebuildSpendCounters(cardId);
+        }
+        log.info("Spend counters reconciled for {} cards", cardIds.size());
+    }
+}
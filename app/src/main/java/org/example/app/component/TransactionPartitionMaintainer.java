@@ -0,0 +1,102 @@
+package org.example.app.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживает помесячные партиции таблицы transactions: заранее создаёт партиции
+ * на ближайшие месяцы и отсоединяет партиции старше срока хранения, перенося их
+ * в архивную схему. Строки за месяц без партиции попадают в transactions_default.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionPartitionMaintainer {
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_y(\\d{4})m(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionPartitionProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${transactions.partitions.maintenance-cron:0 0 2 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        Set<YearMonth> existing = findPartitions();
+
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(month)) {
+                createPartition(month);
+            }
+        }
+
+        if (properties.getRetentionMonths() > 0) {
+            YearMonth oldest = current.minusMonths(properties.getRetentionMonths());
+            for (YearMonth month : existing) {
+                if (month.isBefore(oldest)) {
+                    archivePartition(month);
+                }
+            }
+        }
+    }
+
+    public static String partitionName(YearMonth month) {
+        return String.format("transactions_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private Set<YearMonth> findPartitions() {
+        Set<YearMonth> months = new TreeSet<>();
+        jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = 'transactions' AND p.relnamespace = 'public'::regnamespace",
+                String.class)
+                .forEach(name -> {
+                    Matcher matcher = PARTITION_NAME.matcher(name);
+                    if (matcher.matches()) {
+                        months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                    }
+                });
+        return months;
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        try {
+            // IF NOT EXISTS - на случай, если партицию одновременно создаёт другой экземпляр
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF transactions " +
+                    "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            // Первичный ключ (id, transaction_date) не гарантирует уникальность id, см. V14
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + name + "_id_key ON " + name + " (id)");
+            log.info("Transaction partition {} created", name);
+        } catch (DataAccessException e) {
+            // Например, в transactions_default уже есть строки за этот месяц
+            log.error("Failed to create transaction partition {}", name, e);
+        }
+    }
+
+    private void archivePartition(YearMonth month) {
+        String name = partitionName(month);
+        String schema = properties.getArchiveSchema();
+        try {
+            jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + name);
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+            jdbcTemplate.execute("ALTER TABLE " + name + " SET SCHEMA " + schema);
+            log.info("Transaction partition {} detached to schema {}", name, schema);
+        } catch (DataAccessException e) {
+            log.error("Failed to archive transaction partition {}", name, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.app.component;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "transactions.partitions")
+public class TransactionPartitionProperties {
+    // На сколько месяцев вперёд держать готовые партиции
+    private int monthsAhead = 3;
+
+    // Партиции старше срока отсоединяются и переносятся в архивную схему. 0 - хранить всё
+    private int retentionMonths = 60;
+
+    private String archiveSchema = "archive";
+}
@@ -0,0 +1,28 @@
+package org.example.app.component;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "transfer")
+public class TransferProperties {
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.ATOMIC;
+    private int maxAttempts = 5;
+    private Duration initialBackoff = Duration.ofMillis(20);
+    private Duration maxBackoff = Duration.ofMillis(500);
+
+    public enum ConcurrencyMode {
+        // Условные UPDATE баланса без чтения карт, строки блокируются в порядке возрастания id
+        ATOMIC,
+        // Блокировка обеих карт SELECT ... FOR UPDATE в порядке возрастания id
+        PESSIMISTIC,
+        // Проверка версии карты при записи и повтор перевода при конфликте
+        OPTIMISTIC
+    }
+}
@@ -1,21 +1,51 @@
 package org.example.app.component;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.example.app.exception.ResourceNotFoundException;
+import org.example.app.model.Role;
 import org.example.app.model.User;
 import org.example.app.repository.UserRepository;
 import org.example.app.service.CustomUserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Component
 @RequiredArgsConstructor
 public class UserUtils implements ApplicationRunner {
+    private static final String REQUEST_ATTRIBUTE = UserUtils.class.getName() + ".CURRENT_USER";
+
     private final CustomUserDetailsService userDetailsService;
     private final UserRepository userRepository;
 
+    @Value("${users.current-user-cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${users.current-user-cache.ttl:5m}")
+    private Duration cacheTtl;
+
+    private AsyncCache<String, CachedUser> cache;
+
+    /**
+     * Возвращает текущего пользователя по subject токена. Результат запоминается
+     * на время запроса и кэшируется по subject, поэтому в горячих путях таблица
+     * пользователей не читается. Возвращаемый {@link User} - отсоединённый снимок,
+     * в котором заполнены только id, email и роль.
+     */
     public User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
@@ -23,8 +53,45 @@ public class UserUtils implements ApplicationRunner {
             return null;
         }
 
-        String email = auth.getName();
-        return userRepository.findByEmail(email).get();
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        CachedUser cached = request == null
+                ? null
+                : (CachedUser) request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (cached == null) {
+            String email = auth.getName();
+            cached = loadCached(email);
+            if (request != null) {
+                request.setAttribute(REQUEST_ATTRIBUTE, cached, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
+
+        return cached.toUser();
+    }
+
+    /**
+     * Сбрасывает кэш пользователя. Внутри транзакции сброс выполняется после
+     * коммита, чтобы конкурентный запрос не закэшировал старые данные.
+     */
+    public void evict(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.synchronous().invalidate(email);
+                }
+            });
+        } else {
+            cache.synchronous().invalidate(email);
+        }
+    }
+
+    @PostConstruct
+    public void initCache() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .buildAsync();
     }
 
     @Override
@@ -34,4 +101,48 @@ public class UserUtils implements ApplicationRunner {
         user.setPassword("admin");
         userDetailsService.createUser(user);
     }
+
+    /**
+     * Пользователь загружается вне вычисления в карте кэша: загрузчик {@code Cache.get}
+     * выполняется под монитором ConcurrentHashMap и закреплял бы виртуальный поток
+     * на время запроса к базе. Конкурентные запросы ждут одну и ту же загрузку,
+     * а сброс во время загрузки не даёт ей вернуть старые данные в кэш.
+     */
+    private CachedUser loadCached(String email) {
+        CompletableFuture<CachedUser> loading = new CompletableFuture<>();
+        CompletableFuture<CachedUser> existing = cache.asMap().putIfAbsent(email, loading);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            CachedUser user = load(email);
+            loading.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            // Неудачная загрузка удаляется из кэша самим Caffeine
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private CachedUser load(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with email " + email));
+        return new CachedUser(user.getId(), user.getEmail(), user.getRole());
+    }
+
+    private record CachedUser(Long id, String email, Role role) {
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setEmail(email);
+            user.setRole(role);
+            return user;
+        }
+    }
 }
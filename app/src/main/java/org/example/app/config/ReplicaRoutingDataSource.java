@@ -0,0 +1,32 @@
+package org.example.app.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Направляет соединения read-only транзакций на реплику, пока она доступна
+ * и её отставание в пределах допустимого. Остальное идёт на primary.
+ * Оборачивается в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * чтобы соединение бралось после того, как признак read-only уже выставлен.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final BooleanSupplier replicaUsable;
+
+    public ReplicaRoutingDataSource(BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable.getAsBoolean()
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+}
@@ -10,11 +10,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.app.dto.CursorPageDTO;
 import org.example.app.dto.card.CardCreateDTO;
 import org.example.app.dto.card.CardDTO;
+import org.example.app.dto.card.CardNumberDTO;
 import org.example.app.dto.card.CardParamDTO;
 import org.example.app.dto.card.CardUpdateDTO;
 import org.example.app.service.CardService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -62,24 +65,61 @@ public class CardController {
         return ResponseEntity.ok(cardDTO);
     }
 
+    @Operation(
+            summary = "Reveal full card number",
+            description = "Returns the decrypted card number. Owners can reveal their own cards, "
+                    + "administrators any card. Every call is written to the audit log"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Card number revealed",
+                    content = @Content(schema = @Schema(implementation = CardNumberDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found or not accessible",
+                    content = @Content
+            )
+    })
+    @PostMapping("/{id}/reveal")
+    public ResponseEntity<CardNumberDTO> reveal(
+            @Parameter(description = "ID of the card to reveal", required = true)
+            @PathVariable Long id) {
+        CardNumberDTO cardNumber = cardService.revealCardNumber(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(cardNumber);
+    }
+
     @Operation(
             summary = "Get all cards",
-            description = "Retrieves all cards with optional filtering parameters"
+            description = "Retrieves a page of cards, newest first, with optional filtering parameters"
     )
     @ApiResponse(
             responseCode = "200",
-            description = "List of cards retrieved successfully",
+            description = "Page of cards retrieved successfully",
             content = @Content(schema = @Schema(implementation = CardDTO[].class)),
-            headers = @Header(name = "X-Total-Count", description = "Total count of items")
+            headers = {
+                    @Header(name = "X-Next-Cursor", description = "Cursor of the next page, absent on the last page"),
+                    @Header(name = "X-Total-Count", description = "Total count of items, only when count=true")
+            }
     )
     @GetMapping
     public ResponseEntity<List<CardDTO>> showAll(
             @Parameter(description = "Filtering parameters for cards")
-            CardParamDTO params) {
-        List<CardDTO> cardDTOS = cardService.findAll(params);
-        return ResponseEntity.ok()
-                .header("X-Total-Count", String.valueOf(cardDTOS.size()))
-                .body(cardDTOS);
+            CardParamDTO params,
+
+            @Parameter(description = "Cursor returned in X-Next-Cursor of the previous page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Page size")
+            @RequestParam(required = false) Integer size,
+
+            @Parameter(description = "Run a separate count query and return X-Total-Count")
+            @RequestParam(defaultValue = "false") boolean count) {
+        CursorPageDTO<CardDTO> page = cardService.findAll(params, cursor, size, count);
+        return PageHeaders.ok(page);
     }
 
     @Operation(
@@ -0,0 +1,28 @@
+package org.example.app.controller;
+
+import org.example.app.dto.CursorPageDTO;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Отдаёт элементы страницы в теле ответа, курсор и общее количество - в заголовках.
+ */
+final class PageHeaders {
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+    static final String TOTAL_COUNT = "X-Total-Count";
+
+    private PageHeaders() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(CursorPageDTO<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR, page.getNextCursor());
+        }
+        if (page.getTotalCount() != null) {
+            response.header(TOTAL_COUNT, String.valueOf(page.getTotalCount()));
+        }
+        return response.body(page.getItems());
+    }
+}
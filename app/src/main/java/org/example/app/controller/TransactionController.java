@@ -10,11 +10,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.app.component.UserUtils;
+import org.example.app.dto.CursorPageDTO;
 import org.example.app.dto.transaction.TransactionCreateDTO;
 import org.example.app.dto.transaction.TransactionDTO;
 import org.example.app.dto.transaction.TransactionParamDTO;
 import org.example.app.dto.transaction.TransactionUpdateDTO;
+import org.example.app.service.IdempotencyService;
+import org.example.app.service.IdempotencyService.IdempotentResult;
+import org.example.app.service.TransactionImportService.Format;
 import org.example.app.service.TransactionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,9 +31,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Validated
@@ -35,7 +46,12 @@ import java.util.List;
 @RequiredArgsConstructor
 @Tag(name = "Transaction Management", description = "API for managing card transactions")
 public class TransactionController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+
     private final TransactionService transactionService;
+    private final UserUtils userUtils;
+    private final IdempotencyService idempotencyService;
 
     @Operation(
             summary = "Get transaction by ID",
@@ -66,13 +82,16 @@ public class TransactionController {
 
     @Operation(
             summary = "Get all transactions for card",
-            description = "Retrieves all transactions for a specific card with optional filtering"
+            description = "Retrieves a page of transactions for a specific card, newest first, with optional filtering"
     )
     @ApiResponse(
             responseCode = "200",
-            description = "List of transactions retrieved successfully",
+            description = "Page of transactions retrieved successfully",
             content = @Content(schema = @Schema(implementation = TransactionDTO[].class)),
-            headers = @Header(name = "X-Total-Count", description = "Total count of transactions")
+            headers = {
+                    @Header(name = "X-Next-Cursor", description = "Cursor of the next page, absent on the last page"),
+                    @Header(name = "X-Total-Count", description = "Total count of transactions, only when count=true")
+            }
     )
     @GetMapping
     public ResponseEntity<List<TransactionDTO>> findAll(
@@ -80,12 +99,67 @@ public class TransactionController {
             @PathVariable Long cardId,
 
             @Parameter(description = "Filtering parameters for transactions")
-            TransactionParamDTO params) {
+            TransactionParamDTO params,
+
+            @Parameter(description = "Cursor returned in X-Next-Cursor of the previous page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Page size")
+            @RequestParam(required = false) Integer size,
+
+            @Parameter(description = "Run a separate count query and return X-Total-Count")
+            @RequestParam(defaultValue = "false") boolean count) {
         params.setCardId(cardId);
-        List<TransactionDTO> transactionDTOS = transactionService.findAll(params);
+        CursorPageDTO<TransactionDTO> page = transactionService.findAll(params, cursor, size, count);
+        return PageHeaders.ok(page);
+    }
+
+    @Operation(
+            summary = "Export card statement",
+            description = "Streams all transactions of the card for the period in chronological order as CSV or NDJSON"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statement is streamed in the requested format",
+                    content = {
+                            @Content(mediaType = TEXT_CSV_VALUE),
+                            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)
+                    }
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Start date is after end date",
+                    content = @Content
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found",
+                    content = @Content
+            )
+    })
+    @GetMapping(value = "/statement", produces = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @Parameter(description = "ID of the card", required = true)
+            @PathVariable Long cardId,
+
+            @Parameter(description = "First day of the statement period", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Last day of the statement period, inclusive", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+
+            @Parameter(description = "Output format")
+            @RequestParam(defaultValue = "CSV") Format format) {
+        transactionService.checkStatementPeriod(from, to);
+        transactionService.checkCardExists(cardId);
+        StreamingResponseBody body = output -> transactionService.exportStatement(cardId, from, to, format, output);
+        String fileName = "statement-" + cardId + "-" + from + "-" + to
+                + (format == Format.CSV ? ".csv" : ".ndjson");
         return ResponseEntity.ok()
-                .header("X-total-count", String.valueOf(transactionDTOS.size()))
-                .body(transactionDTOS);
+                .contentType(format == Format.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
     }
 
     @Operation(
@@ -115,11 +189,18 @@ public class TransactionController {
             @PathVariable Long cardId,
 
             @Parameter(description = "Transaction data to create", required = true)
-            @RequestBody @Valid TransactionCreateDTO createDTO) {
-        TransactionDTO transactionDTO = transactionService.save(createDTO, cardId);
-        return ResponseEntity
-                .status(HttpStatus.CREATED)
-                .body(transactionDTO);
+            @RequestBody @Valid TransactionCreateDTO createDTO,
+
+            @Parameter(description = "Client key of the request, a repeat with the same key returns the original result")
+            @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey) {
+        IdempotentResult<TransactionDTO> result = idempotencyService.execute(userUtils.getCurrentUser().getId(),
+                idempotencyKey, "transactions:" + cardId, createDTO, TransactionDTO.class,
+                recorder -> transactionService.save(createDTO, cardId, recorder));
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+        if (result.replayed()) {
+            response.header(IdempotencyService.REPLAYED_HEADER, "true");
+        }
+        return response.body(result.body());
     }
 
     @Operation(
@@ -0,0 +1,73 @@
+package org.example.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.example.app.dto.transaction.TransactionImportReportDTO;
+import org.example.app.service.TransactionImportService;
+import org.example.app.service.TransactionImportService.Format;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@Validated
+@RestController
+@RequestMapping("/api/transactions/import")
+@RequiredArgsConstructor
+@Tag(name = "Transaction Import", description = "API for bulk loading of card transactions")
+public class TransactionImportController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final TransactionImportService transactionImportService;
+
+    @Operation(
+            summary = "Import transactions",
+            description = "Streams an NDJSON or CSV file of transactions for any cards, "
+                    + "applies limit checks per card and commits in chunks"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "File processed, see per-row results",
+                    content = @Content(schema = @Schema(implementation = TransactionImportReportDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "File could not be read",
+                    content = @Content
+            )
+    })
+    @PostMapping(
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<TransactionImportReportDTO> importTransactions(
+            @Parameter(hidden = true)
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+
+            @Parameter(description = "Number of rows committed per database transaction")
+            @RequestParam(required = false) Integer chunkSize,
+
+            @Parameter(description = "NDJSON lines or CSV rows with header "
+                    + "cardId,amount,description,type,transactionDate", required = true)
+            InputStream body) {
+        Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? Format.NDJSON
+                : Format.CSV;
+        TransactionImportReportDTO report = transactionImportService.importTransactions(body, format, chunkSize);
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.app.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.example.app.dto.report.SpendReportDTO;
+import org.example.app.dto.report.TypeTotalDTO;
+import org.example.app.service.CardDailyTotalService;
+import org.example.app.service.TransactionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cards/{cardId}/reports")
+@RequiredArgsConstructor
+@Tag(name = "Transaction Reports", description = "API for card spending reports built from daily totals")
+public class TransactionReportController {
+    private final CardDailyTotalService cardDailyTotalService;
+    private final TransactionService transactionService;
+
+    @Operation(
+            summary = "Get card spending for period",
+            description = "Returns the sum and count of all non-deposit transactions of the card for the period"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Spending calculated successfully",
+                    content = @Content(schema = @Schema(implementation = SpendReportDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Start date is after end date",
+                    content = @Content
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found",
+                    content = @Content
+            )
+    })
+    @GetMapping("/spend")
+    public ResponseEntity<SpendReportDTO> spend(
+            @Parameter(description = "ID of the card", required = true)
+            @PathVariable Long cardId,
+
+            @Parameter(description = "First day of the period", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Last day of the period, inclusive", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        transactionService.checkCardExists(cardId);
+        return ResponseEntity.ok(cardDailyTotalService.getSpendReport(cardId, from, to));
+    }
+
+    @Operation(
+            summary = "Get card totals by transaction type",
+            description = "Returns the sum and count of the card transactions for the period grouped by type"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Totals calculated successfully",
+                    content = @Content(schema = @Schema(implementation = TypeTotalDTO[].class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Start date is after end date",
+                    content = @Content
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Card not found",
+                    content = @Content
+            )
+    })
+    @GetMapping("/by-type")
+    public ResponseEntity<List<TypeTotalDTO>> byType(
+            @Parameter(description = "ID of the card", required = true)
+            @PathVariable Long cardId,
+
+            @Parameter(description = "First day of the period", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Last day of the period, inclusive", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        transactionService.checkCardExists(cardId);
+        return ResponseEntity.ok(cardDailyTotalService.getTotalsByType(cardId, from, to));
+    }
+}
@@ -11,14 +11,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.app.component.UserUtils;
+import org.example.app.dto.BatchTransferDTO;
+import org.example.app.dto.BatchTransferReportDTO;
 import org.example.app.dto.TransferDTO;
 import org.example.app.model.User;
+import org.example.app.service.IdempotencyService;
+import org.example.app.service.IdempotencyService.IdempotentResult;
 import org.example.app.service.TransferService;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -32,6 +37,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class TransferController {
     private final TransferService transferService;
     private final UserUtils userUtils;
+    private final IdempotencyService idempotencyService;
 
     @Operation(
             summary = "Transfer between own cards",
@@ -75,11 +81,74 @@ public class TransferController {
                     description = "Transfer details including source card, target card and amount",
                     required = true,
                     schema = @Schema(implementation = TransferDTO.class))
-            @RequestBody @Valid TransferDTO transferDTO) {
+            @RequestBody @Valid TransferDTO transferDTO,
+
+            @Parameter(description = "Client key of the request, a repeat with the same key returns the original result")
+            @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey) {
         User user = userUtils.getCurrentUser();
         Long userId = user.getId();
 
-        transferService.transferBetweenOwnCards(userId, transferDTO);
-        return ResponseEntity.ok().build();
+        IdempotentResult<Void> result = idempotencyService.execute(userId, idempotencyKey, "transfer",
+                transferDTO, Void.class, recorder -> {
+                    transferService.transferBetweenOwnCards(userId, transferDTO, recorder);
+                    return null;
+                });
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.replayed()) {
+            response.header(IdempotencyService.REPLAYED_HEADER, "true");
+        }
+        return response.build();
+    }
+
+    @Operation(
+            summary = "Batch transfer between own cards",
+            description = "Executes many transfers between cards of the same user in one transaction. "
+                    + "ALL_OR_NOTHING rolls back the whole batch on the first failed transfer, "
+                    + "BEST_EFFORT rejects failed transfers and commits the rest",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed, per-transfer results in the report",
+                    content = @Content(schema = @Schema(implementation = BatchTransferReportDTO.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid batch data, or a transfer failed in ALL_OR_NOTHING mode",
+                    content = @Content
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized - authentication required",
+                    content = @Content
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "One of the cards not found in ALL_OR_NOTHING mode",
+                    content = @Content
+            )
+    })
+    @PostMapping(
+            value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<BatchTransferReportDTO> transferBatch(
+            @Parameter(description = "Transfers of the batch and processing mode", required = true)
+            @RequestBody @Valid BatchTransferDTO batchDTO,
+
+            @Parameter(description = "Client key of the request, a repeat with the same key returns the original result")
+            @RequestHeader(value = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey) {
+        Long userId = userUtils.getCurrentUser().getId();
+
+        IdempotentResult<BatchTransferReportDTO> result = idempotencyService.execute(userId, idempotencyKey,
+                "transfer-batch", batchDTO, BatchTransferReportDTO.class,
+                recorder -> transferService.transferBatch(userId, batchDTO, recorder));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.replayed()) {
+            response.header(IdempotencyService.REPLAYED_HEADER, "true");
+        }
+        return response.body(result.body());
     }
 }
@@ -0,0 +1,36 @@
+package org.example.app.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакет переводов между своими картами, выполняемый одной транзакцией
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferDTO {
+    @NotNull
+    private Mode mode = Mode.ALL_OR_NOTHING;
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid @NotNull TransferDTO> transfers = new ArrayList<>();
+
+    public enum Mode {
+        // Первая ошибка откатывает весь пакет
+        ALL_OR_NOTHING,
+        // Ошибочные переводы отклоняются, остальные фиксируются
+        BEST_EFFORT
+    }
+}
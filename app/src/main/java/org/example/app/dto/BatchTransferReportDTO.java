@@ -0,0 +1,23 @@
+package org.example.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отчёт о выполнении пакета переводов
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferReportDTO {
+    private long total;
+    private long completed;
+    private long rejected;
+    private List<BatchTransferResultDTO> items = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package org.example.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Результат одного перевода из пакета
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResultDTO {
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private Status status;
+    private String error;
+
+    public enum Status {
+        COMPLETED,
+        REJECTED
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.app.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Полный номер карты, отдаётся только через аудируемый запрос раскрытия
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardNumberDTO {
+    private Long cardId;
+    private String cardNumber;
+}
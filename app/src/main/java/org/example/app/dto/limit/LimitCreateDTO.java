@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -24,4 +25,7 @@ public class LimitCreateDTO {
 
     @PastOrPresent
     private final LocalDate periodStartDate;
+
+    // По умолчанию ANCHORED
+    private final WindowAlignment windowAlignment;
 }
\ No newline at end of file
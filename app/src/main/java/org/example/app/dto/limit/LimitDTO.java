@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -21,6 +22,7 @@ public class LimitDTO {
     private PeriodType periodType;
     private BigDecimal limitAmount;
     private LocalDate periodStartDate;
+    private WindowAlignment windowAlignment;
     private boolean active;
     private Long cardId;
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -24,5 +25,7 @@ public class LimitUpdateDTO {
     @FutureOrPresent
     private final LocalDate periodStartDate;
 
+    private final WindowAlignment windowAlignment;
+
     private final boolean active;
 }
\ No newline at end of file
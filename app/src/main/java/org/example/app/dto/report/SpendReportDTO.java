@@ -0,0 +1,24 @@
+package org.example.app.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Списания по карте за период, обе даты включительно. Зачисления не учитываются.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpendReportDTO {
+    private Long cardId;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal amount;
+    private Long transactionCount;
+}
@@ -0,0 +1,22 @@
+package org.example.app.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.app.model.TransactionType;
+
+import java.math.BigDecimal;
+
+/**
+ * Сумма и число транзакций карты одного типа за период
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TypeTotalDTO {
+    private TransactionType type;
+    private BigDecimal amount;
+    private Long transactionCount;
+}
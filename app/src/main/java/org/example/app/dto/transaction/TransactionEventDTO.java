@@ -0,0 +1,20 @@
+package org.example.app.dto.transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Содержимое события outbox о транзакции. Для создания заполнено только
+ * {@code current}, для удаления - только {@code previous}, для изменения - оба,
+ * поэтому потребитель агрегатов вычитает previous и прибавляет current.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionEventDTO {
+    private TransactionDTO previous;
+    private TransactionDTO current;
+}
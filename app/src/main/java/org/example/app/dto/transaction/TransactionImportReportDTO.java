@@ -0,0 +1,23 @@
+package org.example.app.dto.transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отчёт о пакетной загрузке транзакций
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionImportReportDTO {
+    private long total;
+    private long accepted;
+    private long rejected;
+    private List<TransactionImportResultDTO> rows = new ArrayList<>();
+}
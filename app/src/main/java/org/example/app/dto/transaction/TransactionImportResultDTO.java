@@ -0,0 +1,26 @@
+package org.example.app.dto.transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Результат обработки одной строки пакетной загрузки
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionImportResultDTO {
+    private long row;
+    private Long cardId;
+    private Status status;
+    private Long transactionId;
+    private String error;
+
+    public enum Status {
+        ACCEPTED,
+        REJECTED
+    }
+}
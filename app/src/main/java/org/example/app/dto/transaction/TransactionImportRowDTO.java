@@ -0,0 +1,40 @@
+package org.example.app.dto.transaction;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.app.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка файла пакетной загрузки транзакций
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionImportRowDTO {
+    @NotNull
+    private Long cardId;
+
+    @NotNull
+    @Positive
+    private BigDecimal amount;
+
+    @NotNull
+    @NotBlank
+    private String description;
+
+    @NotNull
+    private TransactionType type;
+
+    @PastOrPresent
+    private LocalDateTime transactionDate;
+}
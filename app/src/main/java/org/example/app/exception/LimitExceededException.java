@@ -0,0 +1,7 @@
+package org.example.app.exception;
+
+public class LimitExceededException extends RuntimeException {
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.app.mapper;
 
+import org.example.app.component.CardNumbers;
 import org.example.app.component.CryptoEncoder;
 import org.example.app.dto.card.CardCreateDTO;
 import org.example.app.dto.card.CardDTO;
@@ -8,10 +9,10 @@ import org.example.app.exception.ResourceNotFoundException;
 import org.example.app.model.Card;
 import org.example.app.model.Limit;
 import org.example.app.model.Transaction;
+import org.example.app.repository.IdPair;
 import org.example.app.repository.LimitRepository;
 import org.example.app.repository.TransactionRepository;
 import org.mapstruct.AfterMapping;
-import org.mapstruct.BeforeMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
@@ -20,7 +21,9 @@ import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.mapstruct.ReportingPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Mapper(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE,
@@ -40,51 +43,82 @@ public abstract class CardMapper {
     public abstract Card map(CardDTO dto);
 
     @Mapping(target = "userId", source = "user.id")
-    @Mapping(target = "transactionIds", source = "transactions")
-    @Mapping(target = "limitIds", source = "limits")
-    public abstract CardDTO map(Card model);
+    @Mapping(target = "transactionIds", ignore = true)
+    @Mapping(target = "limitIds", ignore = true)
+    protected abstract CardDTO mapFields(Card model);
 
+    @Mapping(target = "cardNumber", ignore = true)
     public abstract Card map(CardCreateDTO dto);
 
     public abstract void update(CardUpdateDTO dto, @MappingTarget Card model);
 
-    public List<Transaction> longToTransactions(List<Long> ids) {
-        return ids.stream()
-                .map(id -> transactionRepository.findById(id)
-                        .orElseThrow(() -> new ResourceNotFoundException("Transaction not found")))
-                .collect(Collectors.toList());
+    public CardDTO map(Card model) {
+        return map(List.of(model)).get(0);
     }
 
-    public List<Long> transactionsToLongs(List<Transaction> transactions) {
-        return transactions.stream()
-                .map(Transaction::getId)
+    /**
+     * Маппит страницу карт. Идентификаторы транзакций и лимитов подтягиваются
+     * двумя запросами {@code IN} на всю страницу, без обхода ленивых коллекций.
+     */
+    public List<CardDTO> map(List<Card> models) {
+        if (models.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> cardIds = models.stream()
+                .map(Card::getId)
                 .collect(Collectors.toList());
+        Map<Long, List<Long>> transactionIds = groupByOwner(transactionRepository.findIdsByCardIds(cardIds));
+        Map<Long, List<Long>> limitIds = groupByOwner(limitRepository.findIdsByCardIds(cardIds));
+
+        List<CardDTO> dtos = new ArrayList<>(models.size());
+        for (Card model : models) {
+            CardDTO dto = mapFields(model);
+            dto.setTransactionIds(transactionIds.getOrDefault(model.getId(), new ArrayList<>()));
+            dto.setLimitIds(limitIds.getOrDefault(model.getId(), new ArrayList<>()));
+            dtos.add(dto);
+        }
+        return dtos;
     }
 
-    public List<Limit> longToLimits(List<Long> ids) {
-        return ids.stream()
-                .map(id -> limitRepository.findById(id)
-                        .orElseThrow(() -> new ResourceNotFoundException("Limit not found")))
-                .collect(Collectors.toList());
+    public List<Transaction> longToTransactions(List<Long> ids) {
+        List<Transaction> transactions = transactionRepository.findAllById(ids);
+        if (transactions.size() != ids.size()) {
+            throw new ResourceNotFoundException("Transaction not found");
+        }
+        return transactions;
     }
 
-    public List<Long> limitsToLongs(List<Limit> limits) {
-        return limits.stream()
-                .map(Limit::getId)
-                .collect(Collectors.toList());
+    public List<Limit> longToLimits(List<Long> ids) {
+        List<Limit> limits = limitRepository.findAllById(ids);
+        if (limits.size() != ids.size()) {
+            throw new ResourceNotFoundException("Limit not found");
+        }
+        return limits;
     }
 
-    @BeforeMapping
-    public void encryptCardNumber(CardCreateDTO dto) {
-        String cardNumber = dto.getCardNumber();
-        dto.setCardNumber(encoder.encrypt(cardNumber));
+    /**
+     * Шифрует номер карты и заполняет слепой индекс по полному номеру
+     * и последние четыре цифры для поиска.
+     */
+    @AfterMapping
+    public void encryptCardNumber(CardCreateDTO dto, @MappingTarget Card model) {
+        String cardNumber = CardNumbers.normalize(dto.getCardNumber());
+        model.setCardNumber(encoder.encrypt(cardNumber));
+        model.setCardNumberHash(encoder.hash(cardNumber));
+        model.setCardLast4(CardNumbers.last4(cardNumber));
     }
 
+    // Маска строится по сохранённым последним цифрам, без расшифровки номера
     @AfterMapping
     public void maskCardNumber(Card model, @MappingTarget CardDTO dto) {
-        String encrypted = model.getCardNumber();
-        String decrypted = encoder.decrypt(encrypted);
-        dto.setCardNumber(maskNumber(decrypted));
+        dto.setCardNumber(maskNumber(model.getCardLast4()));
+    }
+
+    static Map<Long, List<Long>> groupByOwner(List<IdPair> pairs) {
+        return pairs.stream()
+                .collect(Collectors.groupingBy(IdPair::getOwnerId,
+                        Collectors.mapping(IdPair::getId, Collectors.toList())));
     }
 
     private String maskNumber(String cardNumber) {
@@ -23,6 +23,7 @@ public abstract class LimitMapper {
     @Mapping(target = "cardId", source = "card.id")
     public abstract LimitDTO map(Limit model);
 
+    @Mapping(target = "windowAlignment", defaultValue = "ANCHORED")
     public abstract Limit map(LimitCreateDTO dto);
 
     public abstract void update(LimitUpdateDTO dto,@MappingTarget Limit model);
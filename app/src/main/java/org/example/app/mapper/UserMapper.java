@@ -19,6 +19,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Mapper(
@@ -36,28 +37,48 @@ public abstract class UserMapper {
 
     public abstract User map(UserDTO dto);
 
-    @Mapping(target = "cardIds", source = "cards")
-    public abstract UserDTO map(User model);
+    @Mapping(target = "cardIds", ignore = true)
+    protected abstract UserDTO mapFields(User model);
 
     public abstract User map(UserCreateDTO dto);
 
     public abstract void update(UserUpdateDTO dto, @MappingTarget User model);
 
-    public List<Card> longToCards(List<Long> ids) {
-        return ids == null || ids.isEmpty()
-                ? new ArrayList<>()
-                : ids.stream()
-                .map(id -> cardRepository.findById(id)
-                        .orElseThrow(() -> new ResourceNotFoundException("Card not found")))
-                .collect(Collectors.toList());
+    public UserDTO map(User model) {
+        return map(List.of(model)).get(0);
     }
 
-    public List<Long> cardsToLong(List<Card> cards) {
-        return cards == null
-                ? new ArrayList<>()
-                : cards.stream()
-                .map(Card::getId)
+    /**
+     * Маппит список пользователей, идентификаторы карт выбираются одним запросом {@code IN}.
+     */
+    public List<UserDTO> map(List<User> models) {
+        if (models.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> userIds = models.stream()
+                .map(User::getId)
                 .collect(Collectors.toList());
+        Map<Long, List<Long>> cardIds = CardMapper.groupByOwner(cardRepository.findIdsByUserIds(userIds));
+
+        List<UserDTO> dtos = new ArrayList<>(models.size());
+        for (User model : models) {
+            UserDTO dto = mapFields(model);
+            dto.setCardIds(cardIds.getOrDefault(model.getId(), new ArrayList<>()));
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    public List<Card> longToCards(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Card> cards = cardRepository.findAllById(ids);
+        if (cards.size() != ids.size()) {
+            throw new ResourceNotFoundException("Card not found");
+        }
+        return cards;
     }
 
     @BeforeMapping
@@ -0,0 +1,44 @@
+package org.example.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Итог транзакций карты за день по типу операции.
+ * Ключ - карта, день и тип транзакции.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(CardDailyTotalId.class)
+@Table(name = "card_daily_totals")
+public class CardDailyTotal {
+    @Id
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Id
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+}
@@ -0,0 +1,36 @@
+package org.example.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись аудита о раскрытии полного номера карты. {@code card_id} не ссылается
+ * на карту внешним ключом: запись остаётся после удаления карты.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "card_number_reveals")
+public class CardNumberReveal {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name = "revealed_by", nullable = false)
+    private String revealedBy;
+
+    @Column(name = "revealed_at", nullable = false)
+    private LocalDateTime revealedAt;
+}
@@ -0,0 +1,40 @@
+package org.example.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Результат запроса с заголовком Idempotency-Key. Ключ - пользователь и значение
+ * заголовка, хранится до {@code expiresAt}.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(IdempotencyRecordId.class)
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 от операции и тела запроса, чтобы ключ нельзя было переиспользовать для другого запроса
+    @Column(name = "request_hash", nullable = false)
+    private String requestHash;
+
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
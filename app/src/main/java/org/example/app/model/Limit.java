@@ -37,6 +37,10 @@ public class Limit {
     @Column(name = "period_start_date", nullable = false)
     private LocalDate periodStartDate;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "window_alignment", nullable = false)
+    private WindowAlignment windowAlignment = WindowAlignment.ANCHORED;
+
     @Column(nullable = false)
     private boolean active = true;
 
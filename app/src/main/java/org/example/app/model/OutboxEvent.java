@@ -0,0 +1,50 @@
+package org.example.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие о движении денег. Пишется в одной транзакции с проводкой и
+ * доставляется потребителям по партициям в порядке (txid, id).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    // События одной карты всегда попадают в одну партицию и читаются по порядку
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    // Карта, к которой относится событие
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Транзакция, записавшая событие. Заполняется базой, см. V18
+    @Column(name = "txid", nullable = false, insertable = false, updatable = false)
+    private Long txid;
+}
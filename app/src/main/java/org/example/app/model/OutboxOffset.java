@@ -0,0 +1,38 @@
+package org.example.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Позиция потребителя в партиции outbox: txid и id последнего обработанного события.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(OutboxOffsetId.class)
+@Table(name = "outbox_offsets")
+public class OutboxOffset {
+    @Id
+    @Column(name = "consumer", nullable = false)
+    private String consumer;
+
+    @Id
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "last_txid", nullable = false)
+    private long lastTxid;
+
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -2,5 +2,8 @@ package org.example.app.model;
 
 public enum PeriodType {
     DAILY,
-    MONTHLY
+    WEEKLY,
+    MONTHLY,
+    // Ограничение суммы одной операции, без накопления за период
+    PER_TRANSACTION
 }
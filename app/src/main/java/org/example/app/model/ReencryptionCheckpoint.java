@@ -0,0 +1,36 @@
+package org.example.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Прогресс фонового перешифрования: до какой записи дошёл проход
+ * для текущего активного ключа.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "reencryption_checkpoints")
+public class ReencryptionCheckpoint {
+    @Id
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(name = "key_id", nullable = false)
+    private String keyId;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,41 @@
+package org.example.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Нарастающий итог списаний по карте за период лимита.
+ * Ключ - карта, тип периода и дата начала периода.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(SpendCounterId.class)
+@Table(name = "card_spend_counters")
+public class SpendCounter {
+    @Id
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false)
+    private PeriodType periodType;
+
+    @Id
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+}
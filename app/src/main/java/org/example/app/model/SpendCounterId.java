@@ -0,0 +1,21 @@
+package org.example.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class SpendCounterId implements Serializable {
+    private Long cardId;
+    private PeriodType periodType;
+    private LocalDate periodStart;
+}
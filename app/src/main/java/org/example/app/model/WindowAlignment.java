@@ -0,0 +1,11 @@
+package org.example.app.model;
+
+/**
+ * Как период лимита делится на окна, за которые копятся списания.
+ */
+public enum WindowAlignment {
+    // Окна идут подряд от даты начала лимита: сутки, 7 дней или месяц от того же числа
+    ANCHORED,
+    // Окна совпадают с календарными сутками, неделей с понедельника или месяцем
+    CALENDAR
+}
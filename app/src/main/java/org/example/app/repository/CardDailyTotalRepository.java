@@ -0,0 +1,80 @@
+package org.example.app.repository;
+
+import org.example.app.dto.report.TypeTotalDTO;
+import org.example.app.model.CardDailyTotal;
+import org.example.app.model.CardDailyTotalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CardDailyTotalRepository extends JpaRepository<CardDailyTotal, CardDailyTotalId> {
+    /**
+     * Сумма списаний по карте за дни [from, to]. Читает не больше одной строки
+     * на день и тип по первичному ключу (card_id, day, type).
+     */
+    @Query("SELECT COALESCE(SUM(d.amount), 0) FROM CardDailyTotal d " +
+            "WHERE d.cardId = :cardId " +
+            "AND d.type <> org.example.app.model.TransactionType.DEPOSIT " +
+            "AND d.day >= :from AND d.day <= :to")
+    BigDecimal sumSpending(
+            @Param("cardId") Long cardId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    @Query("SELECT new org.example.app.dto.report.TypeTotalDTO(d.type, SUM(d.amount), SUM(d.transactionCount)) " +
+            "FROM CardDailyTotal d " +
+            "WHERE d.cardId = :cardId " +
+            "AND d.day >= :from AND d.day <= :to " +
+            "GROUP BY d.type " +
+            "ORDER BY d.type")
+    List<TypeTotalDTO> findTypeTotals(
+            @Param("cardId") Long cardId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    // Прибавляет изменение к итогу дня, создавая строку при первой транзакции дня
+    @Modifying
+    @Query(value = "INSERT INTO card_daily_totals (card_id, day, type, amount, transaction_count) " +
+            "VALUES (:cardId, :day, :type, :amount, :count) " +
+            "ON CONFLICT (card_id, day, type) " +
+            "DO UPDATE SET amount = card_daily_totals.amount + EXCLUDED.amount, " +
+            "transaction_count = card_daily_totals.transaction_count + EXCLUDED.transaction_count",
+            nativeQuery = true)
+    int increment(
+            @Param("cardId") Long cardId,
+            @Param("day") LocalDate day,
+            @Param("type") String type,
+            @Param("amount") BigDecimal amount,
+            @Param("count") long count);
+
+    // Останавливает инкрементальные обновления до конца транзакции пересчёта
+    @Modifying
+    @Query(value = "LOCK TABLE card_daily_totals IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM card_daily_totals WHERE day >= :from AND day < :to", nativeQuery = true)
+    int deleteRange(
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    // Пересчитывает итоги по транзакциям интервала, условие на дату отсекает лишние партиции
+    @Modifying
+    @Query(value = "INSERT INTO card_daily_totals (card_id, day, type, amount, transaction_count) " +
+            "SELECT t.card_id, CAST(t.transaction_date AS DATE), t.type, SUM(t.amount), COUNT(*) " +
+            "FROM transactions t " +
+            "WHERE t.transaction_date >= :from AND t.transaction_date < :to " +
+            "GROUP BY t.card_id, CAST(t.transaction_date AS DATE), t.type",
+            nativeQuery = true)
+    int insertFromTransactions(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+}
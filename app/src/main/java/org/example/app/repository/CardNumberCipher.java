@@ -0,0 +1,10 @@
+package org.example.app.repository;
+
+/**
+ * Проекция "id карты - зашифрованный номер" для перешифрования без загрузки сущностей.
+ */
+public interface CardNumberCipher {
+    Long getId();
+
+    String getCardNumber();
+}
@@ -0,0 +1,9 @@
+package org.example.app.repository;
+
+import org.example.app.model.CardNumberReveal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardNumberRevealRepository extends JpaRepository<CardNumberReveal, Long> {
+}
@@ -1,12 +1,18 @@
 package org.example.app.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.app.model.Card;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +22,57 @@ public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificat
 
     Optional<Card> findByIdAndUserId(Long cardId, Long userId);
 
+    boolean existsByCardNumberHash(String cardNumberHash);
+
+    @Query("SELECT c.id AS id, c.cardNumber AS cardNumber FROM Card c " +
+            "WHERE c.id > :afterId ORDER BY c.id")
+    List<CardNumberCipher> findCardNumbersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Меняет шифротекст, только если его не изменили параллельно; версию карты не трогает
+    @Modifying
+    @Query("UPDATE Card c SET c.cardNumber = :cardNumber WHERE c.id = :id AND c.cardNumber = :previous")
+    int replaceCardNumber(
+            @Param("id") Long id,
+            @Param("previous") String previous,
+            @Param("cardNumber") String cardNumber);
+
+    // Карты без слепого индекса номера, по возрастанию id
+    List<Card> findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(Long afterId);
+
     @Query("SELECT c FROM Card c WHERE c.user.id = :userId AND c.status = 'ACTIVE'")
     List<Card> findAllActiveByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT c.user.id AS ownerId, c.id AS id FROM Card c " +
+            "WHERE c.user.id IN :userIds ORDER BY c.id")
+    List<IdPair> findIdsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT c.id FROM Card c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Блокирует карты пользователя в порядке возрастания id, чтобы встречные переводы не давали deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :ids AND c.user.id = :userId ORDER BY c.id")
+    List<Card> findAllByIdInAndUserIdForUpdate(
+            @Param("ids") Collection<Long> ids,
+            @Param("userId") Long userId);
+
+    // Списывает сумму одним UPDATE, если карта принадлежит пользователю и средств достаточно
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance - :amount, " +
+            "c.version = c.version + 1, c.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id AND c.user.id = :userId AND c.balance >= :amount")
+    int withdraw(
+            @Param("id") Long id,
+            @Param("userId") Long userId,
+            @Param("amount") BigDecimal amount);
+
+    // Зачисляет сумму одним UPDATE, если карта принадлежит пользователю
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount, " +
+            "c.version = c.version + 1, c.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE c.id = :id AND c.user.id = :userId")
+    int deposit(
+            @Param("id") Long id,
+            @Param("userId") Long userId,
+            @Param("amount") BigDecimal amount);
 }
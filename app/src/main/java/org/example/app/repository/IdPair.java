@@ -0,0 +1,11 @@
+package org.example.app.repository;
+
+/**
+ * Проекция "id владельца - id дочерней записи" для пакетной выборки идентификаторов
+ * связей без загрузки самих сущностей.
+ */
+public interface IdPair {
+    Long getOwnerId();
+
+    Long getId();
+}
@@ -0,0 +1,58 @@
+package org.example.app.repository;
+
+import org.example.app.model.IdempotencyRecord;
+import org.example.app.model.IdempotencyRecordId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecordId> {
+    // Сохранённый ответ читается с primary: отстающая реплика может его ещё не видеть
+    @Override
+    @Transactional
+    Optional<IdempotencyRecord> findById(IdempotencyRecordId id);
+
+    // Занимает ключ записью без ответа. Истёкшая запись перезаписывается, действующая
+    // остаётся без изменений и запрос возвращает 0. Конкурентная вставка того же ключа
+    // ждёт завершения первой транзакции
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, response_body, expires_at) " +
+            "VALUES (:userId, :key, :requestHash, NULL, :expiresAt) " +
+            "ON CONFLICT (user_id, idempotency_key) DO UPDATE " +
+            "SET request_hash = EXCLUDED.request_hash, " +
+            "response_body = EXCLUDED.response_body, " +
+            "expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < :now",
+            nativeQuery = true)
+    int claim(
+            @Param("userId") Long userId,
+            @Param("key") String key,
+            @Param("requestHash") String requestHash,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("now") LocalDateTime now);
+
+    // Записывает результат под ключом, занятым в той же транзакции
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET response_body = :responseBody " +
+            "WHERE user_id = :userId AND idempotency_key = :key",
+            nativeQuery = true)
+    int complete(
+            @Param("userId") Long userId,
+            @Param("key") String key,
+            @Param("responseBody") String responseBody);
+
+    // Удаляет истёкшие ключи порциями, чтобы не держать длинную транзакцию
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE (user_id, idempotency_key) IN (" +
+            "SELECT user_id, idempotency_key FROM idempotency_keys " +
+            "WHERE expires_at < :now LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+}
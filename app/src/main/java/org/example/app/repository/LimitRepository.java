@@ -2,11 +2,21 @@ package org.example.app.repository;
 
 import org.example.app.model.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LimitRepository extends JpaRepository<Limit, Long> {
     List<Limit> findByCardId(Long cardId);
+
+    @Query("SELECT l.card.id AS ownerId, l.id AS id FROM Limit l " +
+            "WHERE l.card.id IN :cardIds ORDER BY l.id")
+    List<IdPair> findIdsByCardIds(@Param("cardIds") Collection<Long> cardIds);
+
+    @Query("SELECT DISTINCT l.card.id FROM Limit l WHERE l.active = true")
+    List<Long> findCardIdsWithActiveLimits();
 }
@@ -0,0 +1,39 @@
+package org.example.app.repository;
+
+import org.example.app.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // События партиции после позиции потребителя в порядке (txid, id). Читаются только события
+    // транзакций старше самой старой активной: позже в партиции не появится событие с меньшим txid
+    @Query(value = "SELECT * FROM outbox_events e " +
+            "WHERE e.partition_no = :partition AND (e.txid, e.id) > (:afterTxid, :afterId) " +
+            "AND e.txid < pg_snapshot_xmin(pg_current_snapshot())::text::bigint " +
+            "ORDER BY e.txid, e.id LIMIT :limit",
+            nativeQuery = true)
+    List<OutboxEvent> findBatch(
+            @Param("partition") int partition,
+            @Param("afterTxid") long afterTxid,
+            @Param("afterId") long afterId,
+            @Param("limit") int limit);
+
+    // Удаляет старые события, которые уже прочитали все потребители партиции
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events e " +
+            "WHERE e.partition_no = :partition AND e.created_at < :before " +
+            "AND EXISTS (SELECT 1 FROM outbox_offsets o WHERE o.partition_no = :partition) " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_offsets o WHERE o.partition_no = :partition " +
+            "AND (o.last_txid, o.last_event_id) < (e.txid, e.id))",
+            nativeQuery = true)
+    int deleteDelivered(
+            @Param("partition") int partition,
+            @Param("before") LocalDateTime before);
+}
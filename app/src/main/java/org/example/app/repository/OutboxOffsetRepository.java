@@ -0,0 +1,33 @@
+package org.example.app.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.app.model.OutboxOffset;
+import org.example.app.model.OutboxOffsetId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, OutboxOffsetId> {
+    @Modifying
+    @Query(value = "INSERT INTO outbox_offsets (consumer, partition_no, last_txid, last_event_id, updated_at) " +
+            "VALUES (:consumer, :partition, 0, 0, :now) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int createIfAbsent(
+            @Param("consumer") String consumer,
+            @Param("partition") int partition,
+            @Param("now") LocalDateTime now);
+
+    // Блокировка позиции не даёт двум экземплярам обрабатывать одну партицию одновременно
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OutboxOffset o WHERE o.consumer = :consumer AND o.partitionNo = :partition")
+    Optional<OutboxOffset> findForUpdate(
+            @Param("consumer") String consumer,
+            @Param("partition") int partition);
+}
@@ -0,0 +1,60 @@
+package org.example.app.repository;
+
+import org.example.app.model.PeriodType;
+import org.example.app.model.SpendCounter;
+import org.example.app.model.SpendCounterId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SpendCounterRepository extends JpaRepository<SpendCounter, SpendCounterId> {
+    @Query("SELECT c.amount FROM SpendCounter c " +
+            "WHERE c.cardId = :cardId " +
+            "AND c.periodType = :periodType " +
+            "AND c.periodStart = :periodStart")
+    Optional<BigDecimal> findAmount(
+            @Param("cardId") Long cardId,
+            @Param("periodType") PeriodType periodType,
+            @Param("periodStart") LocalDate periodStart);
+
+    @Query("SELECT DISTINCT c.cardId FROM SpendCounter c")
+    List<Long> findAllCardIds();
+
+    // Увеличивает счётчик на сумму списания, создавая строку при первом списании за период
+    @Modifying
+    @Query(value = "INSERT INTO card_spend_counters (card_id, period_type, period_start, amount) " +
+            "VALUES (:cardId, :periodType, :periodStart, :amount) " +
+            "ON CONFLICT (card_id, period_type, period_start) " +
+            "DO UPDATE SET amount = card_spend_counters.amount + EXCLUDED.amount",
+            nativeQuery = true)
+    int increment(
+            @Param("cardId") Long cardId,
+            @Param("periodType") String periodType,
+            @Param("periodStart") LocalDate periodStart,
+            @Param("amount") BigDecimal amount);
+
+    // Записывает пересчитанное значение счётчика
+    @Modifying
+    @Query(value = "INSERT INTO card_spend_counters (card_id, period_type, period_start, amount) " +
+            "VALUES (:cardId, :periodType, :periodStart, :amount) " +
+            "ON CONFLICT (card_id, period_type, period_start) " +
+            "DO UPDATE SET amount = EXCLUDED.amount",
+            nativeQuery = true)
+    int overwrite(
+            @Param("cardId") Long cardId,
+            @Param("periodType") String periodType,
+            @Param("periodStart") LocalDate periodStart,
+            @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM SpendCounter c WHERE c.cardId = :cardId")
+    int deleteAllByCardId(@Param("cardId") Long cardId);
+}
@@ -1,36 +1,78 @@
 package org.example.app.repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.app.dto.transaction.TransactionDTO;
 import org.example.app.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
-    List<Transaction> findAllByCardId(Long cardId);
+    String STATEMENT_FETCH_SIZE = "500";
 
-    // Сумма транзакций по карте за конкретный день
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+    @Query("SELECT t.card.id AS ownerId, t.id AS id FROM Transaction t " +
+            "WHERE t.card.id IN :cardIds ORDER BY t.id")
+    List<IdPair> findIdsByCardIds(@Param("cardIds") Collection<Long> cardIds);
+
+    /**
+     * Транзакции карты за полуоткрытый интервал [from, to) в хронологическом порядке.
+     * Строки сразу проецируются в DTO, чтобы не копить сущности в контексте
+     * персистентности, и читаются серверным курсором порциями по {@link #STATEMENT_FETCH_SIZE}.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STATEMENT_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new org.example.app.dto.transaction.TransactionDTO(" +
+            "t.id, t.amount, t.description, t.transactionDate, t.type, t.card.id) " +
+            "FROM Transaction t " +
             "WHERE t.card.id = :cardId " +
-            "AND t.type <> org.example.app.model.TransactionType.DEPOSIT " +
-            "AND CAST(t.transactionDate AS localdate) = :date")
-    BigDecimal getDailyTransactionsSum(
+            "AND t.transactionDate >= :from AND t.transactionDate < :to " +
+            "ORDER BY t.transactionDate, t.id")
+    Stream<TransactionDTO> streamStatement(
             @Param("cardId") Long cardId,
-            @Param("date") LocalDate date);
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 
-    // Сумма транзакций по карте за период
+    /**
+     * Сумма списаний по карте за полуоткрытый интервал [from, to). Условие на дату
+     * не оборачивает колонку в функцию, поэтому выполняется диапазоном по индексу
+     * (card_id, transaction_date), а сумма и тип читаются из того же индекса.
+     */
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
             "WHERE t.card.id = :cardId " +
             "AND t.type <> org.example.app.model.TransactionType.DEPOSIT " +
-            "AND CAST(t.transactionDate AS localdate) BETWEEN :startDate AND :endDate")
-    BigDecimal getTransactionsSumForPeriod(
+            "AND t.transactionDate >= :from AND t.transactionDate < :to")
+    BigDecimal getTransactionsSum(
             @Param("cardId") Long cardId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate);
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t")
+    Optional<LocalDateTime> findFirstTransactionDate();
+
+    // Сумма транзакций по карте за конкретный день
+    default BigDecimal getDailyTransactionsSum(Long cardId, LocalDate date) {
+        return getTransactionsSum(cardId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    // Сумма транзакций по карте за период, обе даты включительно
+    default BigDecimal getTransactionsSumForPeriod(Long cardId, LocalDate startDate, LocalDate endDate) {
+        return getTransactionsSum(cardId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+    }
 }
@@ -0,0 +1,138 @@
+package org.example.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.app.dto.report.SpendReportDTO;
+import org.example.app.dto.report.TypeTotalDTO;
+import org.example.app.dto.transaction.TransactionDTO;
+import org.example.app.model.CardDailyTotalId;
+import org.example.app.model.Transaction;
+import org.example.app.model.TransactionType;
+import org.example.app.repository.CardDailyTotalRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Дневные итоги транзакций по карте и типу. Итоги обновляются в транзакции
+ * проводки, поэтому суммы за период читаются по одной строке на день и тип,
+ * а не по всем транзакциям периода.
+ */
+@Service
+@RequiredArgsConstructor
+public class CardDailyTotalService {
+    // Строки итогов обновляются в одном порядке, чтобы параллельные проводки не ждали друг друга по кругу
+    private static final Comparator<CardDailyTotalId> KEY_ORDER = Comparator
+            .comparing(CardDailyTotalId::getCardId)
+            .thenComparing(CardDailyTotalId::getDay)
+            .thenComparing(CardDailyTotalId::getType);
+
+    private final CardDailyTotalRepository cardDailyTotalRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transactionsCreated(Collection<Transaction> transactions) {
+        Map<CardDailyTotalId, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        transactions.forEach(transaction -> add(deltas, transaction.getCard().getId(),
+                transaction.getTransactionDate(), transaction.getType(), transaction.getAmount(), 1));
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transactionUpdated(TransactionDTO previous, Transaction current) {
+        Map<CardDailyTotalId, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        add(deltas, previous.getCardId(), previous.getTransactionDate(), previous.getType(),
+                previous.getAmount().negate(), -1);
+        add(deltas, current.getCard().getId(), current.getTransactionDate(), current.getType(),
+                current.getAmount(), 1);
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transactionDeleted(Transaction deleted) {
+        Map<CardDailyTotalId, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        add(deltas, deleted.getCard().getId(), deleted.getTransactionDate(), deleted.getType(),
+                deleted.getAmount().negate(), -1);
+        apply(deltas);
+    }
+
+    /**
+     * Сумма списаний по карте за период, обе даты включительно.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getSpending(Long cardId, LocalDate from, LocalDate to) {
+        return cardDailyTotalRepository.sumSpending(cardId, from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public SpendReportDTO getSpendReport(Long cardId, LocalDate from, LocalDate to) {
+        checkPeriod(from, to);
+        BigDecimal amount = BigDecimal.ZERO;
+        long count = 0;
+        for (TypeTotalDTO total : cardDailyTotalRepository.findTypeTotals(cardId, from, to)) {
+            if (total.getType() != TransactionType.DEPOSIT) {
+                amount = amount.add(total.getAmount());
+                count += total.getTransactionCount();
+            }
+        }
+        return new SpendReportDTO(cardId, from, to, amount, count);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TypeTotalDTO> getTotalsByType(Long cardId, LocalDate from, LocalDate to) {
+        checkPeriod(from, to);
+        return cardDailyTotalRepository.findTypeTotals(cardId, from, to).stream()
+                .filter(total -> total.getTransactionCount() > 0)
+                .toList();
+    }
+
+    /**
+     * Пересчитывает итоги месяца по таблице транзакций. Таблица итогов блокируется
+     * от инкрементальных обновлений до коммита: проводки, начатые раньше, успевают
+     * закоммититься и попадают в пересчёт, начатые позже ждут его окончания.
+     *
+     * @return число записанных строк итогов
+     */
+    @Transactional
+    public int rebuild(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        cardDailyTotalRepository.lockForRebuild();
+        cardDailyTotalRepository.deleteRange(from, to);
+        return cardDailyTotalRepository.insertFromTransactions(from.atStartOfDay(), to.atStartOfDay());
+    }
+
+    private void apply(Map<CardDailyTotalId, Delta> deltas) {
+        deltas.forEach((key, delta) -> {
+            if (delta.count() != 0 || delta.amount().signum() != 0) {
+                cardDailyTotalRepository.increment(key.getCardId(), key.getDay(), key.getType().name(),
+                        delta.amount(), delta.count());
+            }
+        });
+    }
+
+    private static void add(Map<CardDailyTotalId, Delta> deltas, Long cardId, LocalDateTime date,
+                            TransactionType type, BigDecimal amount, long count) {
+        deltas.merge(new CardDailyTotalId(cardId, date.toLocalDate(), type), new Delta(amount, count), Delta::plus);
+    }
+
+    private static void checkPeriod(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+    }
+
+    private record Delta(BigDecimal amount, long count) {
+        Delta plus(Delta other) {
+            return new Delta(amount.add(other.amount), count + other.count);
+        }
+    }
+}
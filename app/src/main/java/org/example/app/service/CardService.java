@@ -1,35 +1,49 @@
 package org.example.app.service;
 
+import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.app.component.CryptoEncoder;
 import org.example.app.component.UserUtils;
+import org.example.app.dto.CursorPageDTO;
 import org.example.app.dto.card.CardCreateDTO;
 import org.example.app.dto.card.CardDTO;
+import org.example.app.dto.card.CardNumberDTO;
 import org.example.app.dto.card.CardParamDTO;
 import org.example.app.dto.card.CardUpdateDTO;
 import org.example.app.exception.ResourceNotFoundException;
 import org.example.app.mapper.CardMapper;
 import org.example.app.model.Card;
+import org.example.app.model.CardNumberReveal;
 import org.example.app.model.Role;
 import org.example.app.model.User;
+import org.example.app.repository.CardNumberRevealRepository;
 import org.example.app.repository.CardRepository;
 import org.example.app.repository.UserRepository;
 import org.example.app.specification.CardSpecification;
+import org.example.app.specification.KeysetSpecification;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CardService {
+    private static final String CREATED_AT = "createdAt";
+
     private final CardSpecification specBuilder;
+    private final KeysetSpecification keyset;
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final CardMapper cardMapper;
     private final UserUtils userUtils;
+    private final CardNumberRevealRepository cardNumberRevealRepository;
+    private final CryptoEncoder encoder;
 
     public CardDTO findById(Long id) {
         Card card = cardRepository.findById(id)
@@ -37,20 +51,54 @@ public class CardService {
         return cardMapper.map(card);
     }
 
-    public List<CardDTO> findAll(CardParamDTO params) {
-        Specification<Card> spec = specBuilder.build(params);
-        List<Card> cards = new ArrayList<>();
+    /**
+     * Раскрывает полный номер карты. Владельцу доступны только свои карты,
+     * администратору - любые. Каждое раскрытие пишется в журнал аудита.
+     */
+    @Transactional
+    public CardNumberDTO revealCardNumber(Long id) {
         User user = userUtils.getCurrentUser();
+        if (user == null) {
+            throw new ResourceNotFoundException("Card not found with id " + id);
+        }
+
+        Optional<Card> found = user.getRole() == Role.ADMIN
+                ? cardRepository.findById(id)
+                : cardRepository.findByIdAndUserId(id, user.getId());
+        Card card = found.orElseThrow(() -> new ResourceNotFoundException("Card not found with id " + id));
+
+        CardNumberReveal reveal = new CardNumberReveal();
+        reveal.setCardId(card.getId());
+        reveal.setRevealedBy(user.getEmail());
+        reveal.setRevealedAt(LocalDateTime.now());
+        cardNumberRevealRepository.save(reveal);
+        log.info("Card number of card {} revealed by {}", card.getId(), user.getEmail());
+
+        return new CardNumberDTO(card.getId(), encoder.decrypt(card.getCardNumber()));
+    }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CardDTO> findAll(CardParamDTO params, String cursor, Integer size, boolean withCount) {
+        User user = userUtils.getCurrentUser();
         if (user != null && user.getRole().equals(Role.USER)) {
-            cards.addAll(cardRepository.findAllByUserId(user.getId()));
-        } else {
-            cards.addAll(cardRepository.findAll(spec));
+            params.setUserId(user.getId());
         }
 
-        return cards.stream()
-                .map(cardMapper::map)
-                .collect(Collectors.toList());
+        Specification<Card> spec = specBuilder.build(params);
+        int pageSize = keyset.pageSize(size);
+        List<Card> cards = cardRepository.findBy(spec.and(keyset.after(CREATED_AT, cursor)),
+                query -> query.sortBy(keyset.sort(CREATED_AT)).limit(pageSize + 1).all());
+
+        String nextCursor = null;
+        if (cards.size() > pageSize) {
+            cards = cards.subList(0, pageSize);
+            Card last = cards.get(pageSize - 1);
+            nextCursor = keyset.encode(last.getCreatedAt(), last.getId());
+        }
+        Long totalCount = withCount ? cardRepository.count(spec) : null;
+
+        List<CardDTO> items = cardMapper.map(cards);
+        return new CursorPageDTO<>(items, nextCursor, totalCount);
     }
 
     @Transactional
@@ -59,6 +107,9 @@ public class CardService {
                 .orElse(null);
 
         Card card = cardMapper.map(createDTO);
+        if (cardRepository.existsByCardNumberHash(card.getCardNumberHash())) {
+            throw new ValidationException("Card number already in use");
+        }
         card.setUser(user);
 
         Long id = cardRepository.save(card).getId();
@@ -0,0 +1,173 @@
+package org.example.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ValidationException;
+import lombok.RequiredArgsConstructor;
+import org.example.app.model.IdempotencyRecord;
+import org.example.app.model.IdempotencyRecordId;
+import org.example.app.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Повторные запросы с тем же заголовком Idempotency-Key получают сохранённый
+ * результат первого запроса по одному чтению по первичному ключу, без повторного
+ * выполнения операции. Ключ занимается первым действием транзакции операции,
+ * до проверки лимитов и движения денег: конкурентный запрос с тем же ключом
+ * ждёт на нём завершения первого и получает его результат, а не ошибку
+ * по уже списанному балансу. Результат записывается в той же транзакции.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+
+    /**
+     * Выполняет операцию не более одного раза для ключа пользователя.
+     * Неуспешные запросы не сохраняются и при повторе выполняются снова.
+     *
+     * @param operationName имя операции, входит в хэш запроса вместе с телом
+     * @param operation выполняет запрос и вызывает методы переданного ей {@link Recorder}
+     *                  внутри своей транзакции
+     */
+    public <T> IdempotentResult<T> execute(Long userId, String key, String operationName, Object request,
+                                           Class<T> responseType, Function<Recorder<T>, T> operation) {
+        if (key == null) {
+            return new IdempotentResult<>(operation.apply(Recorder.none()), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException(KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+
+        String requestHash = requestHash(operationName, request);
+        IdempotentResult<T> stored = findStored(userId, key, requestHash, responseType);
+        if (stored != null) {
+            return stored;
+        }
+
+        try {
+            T response = operation.apply(new Recorder<>() {
+                @Override
+                public void claim() {
+                    claimKey(userId, key, requestHash);
+                }
+
+                @Override
+                public void record(T body) {
+                    idempotencyRecordRepository.complete(userId, key, write(body));
+                }
+            });
+            return new IdempotentResult<>(response, false);
+        } catch (RuntimeException e) {
+            // Конкурентный запрос с тем же ключом закоммитил результат первым, а наша транзакция
+            // откатилась: на занятом ключе или на ошибке операции, которую он вызвал
+            stored = findStored(userId, key, requestHash, responseType);
+            if (stored == null) {
+                throw e;
+            }
+            return stored;
+        }
+    }
+
+    private <T> IdempotentResult<T> findStored(Long userId, String key, String requestHash, Class<T> responseType) {
+        IdempotencyRecord record = idempotencyRecordRepository.findById(new IdempotencyRecordId(userId, key))
+                .filter(saved -> saved.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElse(null);
+        if (record == null) {
+            return null;
+        }
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new ValidationException(KEY_HEADER + " has already been used for a different request");
+        }
+        return new IdempotentResult<>(read(record.getResponseBody(), responseType), true);
+    }
+
+    private void claimKey(Long userId, String key, String requestHash) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Idempotency key must be claimed in the operation transaction");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (idempotencyRecordRepository.claim(userId, key, requestHash, now.plus(ttl), now) == 0) {
+            throw new DuplicateKeyException(KEY_HEADER + " " + key + " is already used");
+        }
+    }
+
+    /**
+     * SHA-256 от имени операции и JSON тела запроса.
+     */
+    public String requestHash(String operationName, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operationName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot hash idempotent request", e);
+        }
+    }
+
+    private String write(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store idempotent response", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> responseType) {
+        try {
+            return body == null ? null : objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read idempotent response", e);
+        }
+    }
+
+    /**
+     * Колбэк операции для ключа идемпотентности. Оба метода вызываются внутри
+     * транзакции операции: {@link #claim()} первым действием, {@link #record} с готовым
+     * результатом перед коммитом. При повторе транзакции вызываются снова.
+     */
+    public interface Recorder<T> {
+        void claim();
+
+        void record(T response);
+
+        static <T> Recorder<T> none() {
+            return new Recorder<>() {
+                @Override
+                public void claim() {
+                }
+
+                @Override
+                public void record(T response) {
+                }
+            };
+        }
+    }
+
+    /**
+     * @param replayed {@code true}, если результат взят из сохранённого ответа
+     */
+    public record IdempotentResult<T>(T body, boolean replayed) {
+    }
+}
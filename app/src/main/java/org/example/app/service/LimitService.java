@@ -1,23 +1,35 @@
 package org.example.app.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.app.component.BankMetrics;
+import org.example.app.component.HotCardLimitEngine;
+import org.example.app.component.PeriodWindow;
+import org.example.app.component.PeriodWindows;
 import org.example.app.dto.limit.LimitCreateDTO;
 import org.example.app.dto.limit.LimitDTO;
 import org.example.app.dto.limit.LimitUpdateDTO;
+import org.example.app.exception.LimitExceededException;
 import org.example.app.exception.ResourceNotFoundException;
 import org.example.app.mapper.LimitMapper;
 import org.example.app.model.Card;
 import org.example.app.model.Limit;
 import org.example.app.model.PeriodType;
+import org.example.app.model.SpendCounterId;
+import org.example.app.model.TransactionType;
 import org.example.app.repository.CardRepository;
 import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
 import org.example.app.repository.TransactionRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,7 +38,11 @@ public class LimitService {
     private final TransactionRepository transactionRepository;
     private final LimitRepository limitRepository;
     private final CardRepository cardRepository;
+    private final SpendCounterRepository spendCounterRepository;
+    private final HotCardLimitEngine hotCardLimits;
+    private final PeriodWindows periodWindows;
     private final LimitMapper limitMapper;
+    private final BankMetrics metrics;
 
     public LimitDTO findById(Long id) {
         Limit limit = limitRepository.findById(id)
@@ -50,6 +66,7 @@ public class LimitService {
         limit.setCard(card);
 
         limitRepository.save(limit);
+        rebuildSpendCounters(cardId);
         return limitMapper.map(limit);
     }
 
@@ -61,6 +78,7 @@ public class LimitService {
         limitMapper.update(updateDTO, limit);
 
         limitRepository.save(limit);
+        rebuildSpendCounters(limit.getCard().getId());
         return limitMapper.map(limit);
     }
 
@@ -68,32 +86,205 @@ public class LimitService {
     public void delete(Long id) {
         Limit limit = limitRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Limit not found with id: " + id));
+        Long cardId = limit.getCard().getId();
         limitRepository.delete(limit);
+        rebuildSpendCounters(cardId);
     }
 
     @Transactional
     public void checkLimit(Long cardId, BigDecimal amount) {
+        if (hotCardLimits.isEnabled()) {
+            PeriodType exceeded = hotCardLimits.findExceeded(cardId, amount);
+            if (exceeded != null) {
+                metrics.limitRejected(exceeded);
+                throw new LimitExceededException("Exceeding the limit");
+            }
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
         List<Limit> limits = limitRepository.findByCardId(cardId);
-        if (!limits.isEmpty()) {
-            for (Limit limit : limits) {
-                if (!checkLimitForCard(limit, cardId, amount)) {
-                    throw new RuntimeException("Exceeding the limit");
-                }
+        for (Limit limit : limits) {
+            if (!limit.isActive()) {
+                continue;
+            }
+            // Время проверки пишется отдельно по каждому типу лимита
+            boolean allowed = metrics.limitCheckTimer(limit.getPeriodType())
+                    .record(() -> checkLimitForCard(limit, cardId, today, amount));
+            if (!allowed) {
+                metrics.limitRejected(limit.getPeriodType());
+                throw new LimitExceededException("Exceeding the limit");
             }
         }
     }
 
-    private boolean checkLimitForCard(Limit limit, Long cardId, BigDecimal amount) {
-        LocalDate startDate = limit.getPeriodStartDate();
-        LocalDate endDate = startDate.plusDays(30);
-        BigDecimal sum;
+    /**
+     * Учитывает списание в счётчиках всех активных лимитов карты в окне, которое содержит дату.
+     * Вызывается в той же транзакции, что и запись {@link org.example.app.model.Transaction}.
+     */
+    @Transactional
+    public void recordSpending(Long cardId, TransactionType type, LocalDate date, BigDecimal amount) {
+        if (type == TransactionType.DEPOSIT) {
+            return;
+        }
+
+        limitRepository.findByCardId(cardId).stream()
+                .filter(Limit::isActive)
+                .map(limit -> counterKey(limit, cardId, periodWindows.current(limit, date)))
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(key -> {
+                    spendCounterRepository.increment(cardId, key.getPeriodType().name(), key.getPeriodStart(), amount);
+                    hotCardLimits.counterChanged(key, amount);
+                });
+    }
+
+    /**
+     * Загружает активные лимиты и счётчики текущих окон карты один раз для пакетной обработки.
+     * Дальнейшие проверки выполняются в памяти через {@link LimitBudget}.
+     */
+    @Transactional
+    public LimitBudget loadBudget(Long cardId) {
+        LocalDate today = LocalDate.now();
+        List<BudgetLimit> limits = new ArrayList<>();
+        Map<SpendCounterId, BigDecimal> spent = new HashMap<>();
+        for (Limit limit : limitRepository.findByCardId(cardId)) {
+            if (!limit.isActive()) {
+                continue;
+            }
+            PeriodWindow window = periodWindows.current(limit, today);
+            SpendCounterId key = counterKey(limit, cardId, window);
+            if (key != null) {
+                spent.computeIfAbsent(key, id -> spendCounterRepository
+                        .findAmount(cardId, id.getPeriodType(), id.getPeriodStart())
+                        .orElse(BigDecimal.ZERO));
+                limits.add(new BudgetLimit(limit, window, key));
+            } else if (limit.getPeriodType() == PeriodType.PER_TRANSACTION) {
+                limits.add(new BudgetLimit(limit, null, null));
+            }
+        }
+        return new LimitBudget(limits, spent, metrics);
+    }
+
+    /**
+     * Записывает в счётчики списания, накопленные в бюджете, по одному UPDATE на окно.
+     */
+    @Transactional
+    public void recordSpending(LimitBudget budget) {
+        budget.pending.forEach((key, amount) -> {
+            spendCounterRepository.increment(key.getCardId(), key.getPeriodType().name(), key.getPeriodStart(), amount);
+            hotCardLimits.counterChanged(key, amount);
+        });
+        budget.pending.clear();
+    }
+
+    /**
+     * Пересчитывает счётчики текущих окон лимитов карты по таблице транзакций.
+     * Счётчики прошедших окон удаляются.
+     */
+    @Transactional
+    public void rebuildSpendCounters(Long cardId) {
+        LocalDate today = LocalDate.now();
+        // Окна с общим началом делят счётчик, он считается по самому длинному из них
+        Map<SpendCounterId, LocalDate> ends = new HashMap<>();
+        for (Limit limit : limitRepository.findByCardId(cardId)) {
+            PeriodWindow window = limit.isActive() ? periodWindows.current(limit, today) : null;
+            SpendCounterId key = counterKey(limit, cardId, window);
+            if (key != null) {
+                ends.merge(key, window.end(), (first, second) -> first.isAfter(second) ? first : second);
+            }
+        }
+
+        spendCounterRepository.deleteAllByCardId(cardId);
+        hotCardLimits.invalidate(cardId);
+        ends.forEach((key, end) -> {
+            BigDecimal sum = transactionRepository.getTransactionsSum(
+                    cardId, key.getPeriodStart().atStartOfDay(), end.atStartOfDay());
+            spendCounterRepository.overwrite(cardId, key.getPeriodType().name(), key.getPeriodStart(), sum);
+        });
+    }
 
-        if (limit.isActive() && limit.getPeriodType().equals(PeriodType.DAILY)) {
-            sum = transactionRepository.getDailyTransactionsSum(cardId, startDate).add(amount);
-        } else {
-            sum = transactionRepository.getTransactionsSumForPeriod(cardId, startDate, endDate).add(amount);
+    private boolean checkLimitForCard(Limit limit, Long cardId, LocalDate today, BigDecimal amount) {
+        if (limit.getPeriodType() == PeriodType.PER_TRANSACTION) {
+            return amount.compareTo(limit.getLimitAmount()) < 0;
         }
+        SpendCounterId key = counterKey(limit, cardId, periodWindows.current(limit, today));
+        if (key == null) {
+            // Лимит ещё не начал действовать
+            return true;
+        }
+
+        BigDecimal sum = spendCounterRepository
+                .findAmount(cardId, key.getPeriodType(), key.getPeriodStart())
+                .orElse(BigDecimal.ZERO)
+                .add(amount);
 
         return sum.compareTo(limit.getLimitAmount()) < 0;
     }
+
+    /**
+     * Счётчик окна лимита. Лимиты одного типа с окнами, начинающимися в один день,
+     * делят счётчик; если окна разной длины, сумма берётся по более длинному,
+     * то есть лимит с коротким окном проверяется строже, но не мягче.
+     *
+     * @return null, если у лимита нет окна
+     */
+    private static SpendCounterId counterKey(Limit limit, Long cardId, PeriodWindow window) {
+        return window == null ? null : new SpendCounterId(cardId, limit.getPeriodType(), window.start());
+    }
+
+    private record BudgetLimit(Limit limit, PeriodWindow window, SpendCounterId key) {
+    }
+
+    /**
+     * Остаток лимитов карты с нарастающим итогом в памяти по окнам на момент загрузки.
+     * Проверка повторяет {@link #checkLimit}, учёт списаний - {@link #recordSpending}.
+     */
+    public static class LimitBudget {
+        private final List<BudgetLimit> limits;
+        private final Map<SpendCounterId, BigDecimal> spent;
+        private final Map<SpendCounterId, BigDecimal> pending = new HashMap<>();
+        private final BankMetrics metrics;
+
+        private LimitBudget(List<BudgetLimit> limits, Map<SpendCounterId, BigDecimal> spent, BankMetrics metrics) {
+            this.limits = limits;
+            this.spent = spent;
+            this.metrics = metrics;
+        }
+
+        public boolean tryConsume(TransactionType type, LocalDate date, BigDecimal amount) {
+            for (BudgetLimit budgetLimit : limits) {
+                BigDecimal sum;
+                if (budgetLimit.key() == null) {
+                    sum = amount;
+                } else if (budgetLimit.window().contains(date)) {
+                    sum = spent.get(budgetLimit.key()).add(amount);
+                } else {
+                    continue;
+                }
+                if (sum.compareTo(budgetLimit.limit().getLimitAmount()) >= 0) {
+                    metrics.limitRejected(budgetLimit.limit().getPeriodType());
+                    return false;
+                }
+            }
+            consume(type, date, amount);
+            return true;
+        }
+
+        /**
+         * Учитывает операцию в счётчиках без проверки лимитов, например зачисление по переводу.
+         */
+        public void consume(TransactionType type, LocalDate date, BigDecimal amount) {
+            if (type != TransactionType.DEPOSIT) {
+                limits.stream()
+                        .filter(budgetLimit -> budgetLimit.key() != null && budgetLimit.window().contains(date))
+                        .map(BudgetLimit::key)
+                        .distinct()
+                        .forEach(key -> {
+                            spent.merge(key, amount, BigDecimal::add);
+                            pending.merge(key, amount, BigDecimal::add);
+                        });
+            }
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package org.example.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.example.app.component.OutboxProperties;
+import org.example.app.dto.transaction.TransactionDTO;
+import org.example.app.dto.transaction.TransactionEventDTO;
+import org.example.app.model.OutboxEvent;
+import org.example.app.model.OutboxOffset;
+import org.example.app.model.Transaction;
+import org.example.app.repository.OutboxEventRepository;
+import org.example.app.repository.OutboxOffsetRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Outbox событий о движении денег. События пишутся в транзакции проводки и
+ * читаются потребителями порциями по партициям начиная с сохранённой позиции,
+ * без повторного просмотра всей таблицы транзакций.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    public static final String TRANSACTION_CREATED = "TRANSACTION_CREATED";
+    public static final String TRANSACTION_UPDATED = "TRANSACTION_UPDATED";
+    public static final String TRANSACTION_DELETED = "TRANSACTION_DELETED";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxOffsetRepository outboxOffsetRepository;
+    private final OutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transactionsCreated(Collection<Transaction> transactions) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = transactions.stream()
+                .map(transaction -> event(TRANSACTION_CREATED, transaction.getCard().getId(),
+                        new TransactionEventDTO(null, snapshot(transaction)), now))
+                .toList();
+        outboxEventRepository.saveAll(events);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transactionUpdated(TransactionDTO previous, Transaction current) {
+        outboxEventRepository.save(event(TRANSACTION_UPDATED, current.getCard().getId(),
+                new TransactionEventDTO(previous, snapshot(current)), LocalDateTime.now()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transactionDeleted(Transaction deleted) {
+        outboxEventRepository.save(event(TRANSACTION_DELETED, deleted.getCard().getId(),
+                new TransactionEventDTO(snapshot(deleted), null), LocalDateTime.now()));
+    }
+
+    /**
+     * Передаёт обработчику следующую порцию событий партиции после позиции потребителя
+     * и сдвигает позицию в той же транзакции. Если обработчик бросил исключение,
+     * позиция не меняется и порция будет прочитана снова.
+     * <p>
+     * События, чьи транзакции ещё могут быть активны, ждут их завершения, поэтому
+     * долгая транзакция в базе задерживает доставку, но не приводит к пропуску событий.
+     *
+     * @return число обработанных событий, 0 - новых событий нет
+     */
+    public int consume(String consumer, int partition, int batchSize, Consumer<List<OutboxEvent>> handler) {
+        Integer count = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            OutboxOffset offset = outboxOffsetRepository.findForUpdate(consumer, partition)
+                    .orElseGet(() -> {
+                        outboxOffsetRepository.createIfAbsent(consumer, partition, now);
+                        return outboxOffsetRepository.findForUpdate(consumer, partition).orElseThrow();
+                    });
+
+            List<OutboxEvent> events = outboxEventRepository.findBatch(partition, offset.getLastTxid(),
+                    offset.getLastEventId(), batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+
+            handler.accept(events);
+            OutboxEvent last = events.get(events.size() - 1);
+            offset.setLastTxid(last.getTxid());
+            offset.setLastEventId(last.getId());
+            offset.setUpdatedAt(now);
+            return events.size();
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Удаляет события партиции старше {@code outbox.retention}, прочитанные всеми потребителями.
+     */
+    @Transactional
+    public int purgeDelivered(int partition) {
+        return outboxEventRepository.deleteDelivered(partition, LocalDateTime.now().minus(properties.getRetention()));
+    }
+
+    public TransactionEventDTO readTransactionEvent(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), TransactionEventDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read outbox event " + event.getId(), e);
+        }
+    }
+
+    private OutboxEvent event(String type, Long cardId, TransactionEventDTO payload, LocalDateTime now) {
+        OutboxEvent event = new OutboxEvent();
+        event.setPartitionNo((int) Math.floorMod(cardId, (long) properties.getPartitions()));
+        event.setEventType(type);
+        event.setAggregateId(cardId);
+        event.setCreatedAt(now);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write outbox event", e);
+        }
+        return event;
+    }
+
+    private static TransactionDTO snapshot(Transaction transaction) {
+        return new TransactionDTO(transaction.getId(), transaction.getAmount(), transaction.getDescription(),
+                transaction.getTransactionDate(), transaction.getType(), transaction.getCard().getId());
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.example.app.dto.transaction.TransactionImportRowDTO;
+import org.example.app.model.TransactionType;
+import org.example.app.service.TransactionImportService.Format;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Построчно читает файл загрузки в формате NDJSON или CSV.
+ * В памяти держится только текущая строка.
+ */
+public class TransactionImportReader implements Closeable {
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private Map<String, Integer> csvColumns;
+    private long row;
+
+    public TransactionImportReader(InputStream input, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return следующая строка или {@code null}, если файл закончился
+     */
+    public ParsedRow next() throws IOException {
+        if (format == Format.CSV && csvColumns == null) {
+            readCsvHeader();
+        }
+
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        row++;
+
+        try {
+            TransactionImportRowDTO dto = format == Format.CSV
+                    ? parseCsv(line)
+                    : objectMapper.readValue(line, TransactionImportRowDTO.class);
+            return new ParsedRow(row, dto, null);
+        } catch (JsonProcessingException e) {
+            return new ParsedRow(row, null, "Malformed row: " + e.getOriginalMessage());
+        } catch (RuntimeException e) {
+            return new ParsedRow(row, null, "Malformed row: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readCsvHeader() throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            csvColumns = Map.of();
+            return;
+        }
+
+        csvColumns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            csvColumns.put(names.get(i).trim(), i);
+        }
+    }
+
+    private TransactionImportRowDTO parseCsv(String line) {
+        List<String> values = splitCsv(line);
+
+        TransactionImportRowDTO dto = new TransactionImportRowDTO();
+        String cardId = value(values, "cardId");
+        String amount = value(values, "amount");
+        String type = value(values, "type");
+        String date = value(values, "transactionDate");
+
+        dto.setCardId(cardId == null ? null : Long.valueOf(cardId));
+        dto.setAmount(amount == null ? null : new BigDecimal(amount));
+        dto.setDescription(value(values, "description"));
+        dto.setType(type == null ? null : TransactionType.valueOf(type.toUpperCase(Locale.ROOT)));
+        dto.setTransactionDate(date == null ? null : LocalDateTime.parse(date));
+        return dto;
+    }
+
+    private String value(List<String> values, String column) {
+        Integer index = csvColumns.get(column);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Разбивает строку CSV по запятым с учётом кавычек и экранирования ""
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ParsedRow {
+        private final long row;
+        private final TransactionImportRowDTO dto;
+        private final String error;
+    }
+}
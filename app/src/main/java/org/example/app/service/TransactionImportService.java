@@ -0,0 +1,188 @@
+package org.example.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.example.app.dto.transaction.TransactionImportReportDTO;
+import org.example.app.dto.transaction.TransactionImportResultDTO;
+import org.example.app.dto.transaction.TransactionImportResultDTO.Status;
+import org.example.app.dto.transaction.TransactionImportRowDTO;
+import org.example.app.model.Transaction;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.service.LimitService.LimitBudget;
+import org.example.app.service.TransactionImportReader.ParsedRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетная загрузка транзакций от эквайринга. Файл читается потоково,
+ * строки группируются по картам внутри порции, каждая порция
+ * фиксируется отдельной транзакцией.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionImportService {
+    private final TransactionRepository transactionRepository;
+    private final CardRepository cardRepository;
+    private final LimitService limitService;
+    private final OutboxService outboxService;
+    private final CardDailyTotalService cardDailyTotalService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${transactions.import.chunk-size:500}")
+    private int defaultChunkSize;
+
+    @Value("${transactions.import.max-chunk-size:5000}")
+    private int maxChunkSize;
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    public TransactionImportReportDTO importTransactions(InputStream input, Format format, Integer chunkSize) {
+        int size = chunkSize == null ? defaultChunkSize : Math.max(1, Math.min(chunkSize, maxChunkSize));
+        TransactionImportReportDTO report = new TransactionImportReportDTO();
+
+        try (TransactionImportReader reader = new TransactionImportReader(input, format, objectMapper)) {
+            List<ParsedRow> chunk = new ArrayList<>(size);
+            ParsedRow row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == size) {
+                    processChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, report);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import file", e);
+        }
+
+        return report;
+    }
+
+    private void processChunk(List<ParsedRow> chunk, TransactionImportReportDTO report) {
+        TransactionImportResultDTO[] results = new TransactionImportResultDTO[chunk.size()];
+        Map<Long, List<Integer>> groups = new LinkedHashMap<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            ParsedRow row = chunk.get(i);
+            TransactionImportRowDTO dto = row.getDto();
+            String error = row.getError() != null ? row.getError() : validate(dto);
+            if (error != null) {
+                results[i] = result(row, Status.REJECTED, null, error);
+            } else {
+                groups.computeIfAbsent(dto.getCardId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (!groups.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(chunk, groups, results));
+            } catch (RuntimeException e) {
+                // Порция откатилась целиком
+                for (List<Integer> indexes : groups.values()) {
+                    for (int i : indexes) {
+                        if (results[i] == null || results[i].getStatus() == Status.ACCEPTED) {
+                            results[i] = result(chunk.get(i), Status.REJECTED, null, e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+
+        for (TransactionImportResultDTO result : results) {
+            report.getRows().add(result);
+            report.setTotal(report.getTotal() + 1);
+            if (result.getStatus() == Status.ACCEPTED) {
+                report.setAccepted(report.getAccepted() + 1);
+            } else {
+                report.setRejected(report.getRejected() + 1);
+            }
+        }
+    }
+
+    private void persist(List<ParsedRow> chunk, Map<Long, List<Integer>> groups,
+                         TransactionImportResultDTO[] results) {
+        Set<Long> existing = new HashSet<>(cardRepository.findExistingIds(groups.keySet()));
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> transactions = new ArrayList<>();
+        List<Integer> transactionRows = new ArrayList<>();
+        List<LimitBudget> budgets = new ArrayList<>();
+
+        groups.forEach((cardId, indexes) -> {
+            if (!existing.contains(cardId)) {
+                indexes.forEach(i -> results[i] = result(chunk.get(i), Status.REJECTED, null,
+                        "Card not found with id " + cardId));
+                return;
+            }
+
+            LimitBudget budget = limitService.loadBudget(cardId);
+            budgets.add(budget);
+            for (int i : indexes) {
+                TransactionImportRowDTO dto = chunk.get(i).getDto();
+                LocalDateTime date = dto.getTransactionDate() != null ? dto.getTransactionDate() : now;
+
+                if (!budget.tryConsume(dto.getType(), date.toLocalDate(), dto.getAmount())) {
+                    results[i] = result(chunk.get(i), Status.REJECTED, null, "Exceeding the limit");
+                    continue;
+                }
+
+                Transaction transaction = new Transaction();
+                transaction.setCard(cardRepository.getReferenceById(cardId));
+                transaction.setAmount(dto.getAmount());
+                transaction.setDescription(dto.getDescription());
+                transaction.setType(dto.getType());
+                transaction.setTransactionDate(date);
+                transactions.add(transaction);
+                transactionRows.add(i);
+            }
+        });
+
+        transactionRepository.saveAll(transactions);
+        outboxService.transactionsCreated(transactions);
+        cardDailyTotalService.transactionsCreated(transactions);
+        budgets.forEach(limitService::recordSpending);
+
+        for (int j = 0; j < transactions.size(); j++) {
+            int i = transactionRows.get(j);
+            results[i] = result(chunk.get(i), Status.ACCEPTED, transactions.get(j).getId(), null);
+        }
+    }
+
+    private String validate(TransactionImportRowDTO dto) {
+        Set<ConstraintViolation<TransactionImportRowDTO>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> "\"" + v.getPropertyPath() + "\" - " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("\n"));
+    }
+
+    private TransactionImportResultDTO result(ParsedRow row, Status status, Long transactionId, String error) {
+        Long cardId = row.getDto() == null ? null : row.getDto().getCardId();
+        return new TransactionImportResultDTO(row.getRow(), cardId, status, transactionId, error);
+    }
+}
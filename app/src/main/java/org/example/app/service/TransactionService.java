@@ -1,6 +1,8 @@
 package org.example.app.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.example.app.dto.CursorPageDTO;
 import org.example.app.dto.transaction.TransactionCreateDTO;
 import org.example.app.dto.transaction.TransactionDTO;
 import org.example.app.dto.transaction.TransactionParamDTO;
@@ -11,25 +13,37 @@ import org.example.app.model.Card;
 import org.example.app.model.Transaction;
 import org.example.app.repository.CardRepository;
 import org.example.app.repository.TransactionRepository;
+import org.example.app.service.TransactionImportService.Format;
+import org.example.app.specification.KeysetSpecification;
 import org.example.app.specification.TransactionSpecification;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final String TRANSACTION_DATE = "transactionDate";
+
     private final TransactionRepository transactionRepository;
     private final TransactionSpecification specBuilder;
+    private final KeysetSpecification keyset;
     private final TransactionMapper transactionMapper;
     private final LimitService limitService;
+    private final OutboxService outboxService;
+    private final CardDailyTotalService cardDailyTotalService;
     private final CardRepository cardRepository;
+    private final ObjectMapper objectMapper;
 
     public TransactionDTO findById(Long id) {
         Transaction transaction = transactionRepository.findById(id)
@@ -37,23 +51,75 @@ public class TransactionService {
         return transactionMapper.map(transaction);
     }
 
-    public List<TransactionDTO> findAll(TransactionParamDTO params) {
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TransactionDTO> findAll(TransactionParamDTO params, String cursor,
+                                                Integer size, boolean withCount) {
         Specification<Transaction> spec = specBuilder.build(params);
-        List<Transaction> transactions = transactionRepository.findAll(spec);
-        return transactions.stream()
+        int pageSize = keyset.pageSize(size);
+        List<Transaction> transactions = transactionRepository.findBy(spec.and(keyset.after(TRANSACTION_DATE, cursor)),
+                query -> query.sortBy(keyset.sort(TRANSACTION_DATE)).limit(pageSize + 1).all());
+
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            Transaction last = transactions.get(pageSize - 1);
+            nextCursor = keyset.encode(last.getTransactionDate(), last.getId());
+        }
+        Long totalCount = withCount ? transactionRepository.count(spec) : null;
+
+        List<TransactionDTO> items = transactions.stream()
                 .map(transactionMapper::map)
                 .collect(Collectors.toList());
+        return new CursorPageDTO<>(items, nextCursor, totalCount);
     }
 
-    public List<TransactionDTO> findALLByCardId(Long id) {
-        List<Transaction> transactions = transactionRepository.findAllByCardId(id);
-        return transactions.stream()
-                .map(transactionMapper::map)
-                .collect(Collectors.toList());
+    public void checkCardExists(Long cardId) {
+        if (!cardRepository.existsById(cardId)) {
+            throw new ResourceNotFoundException("Card not found with id " + cardId);
+        }
+    }
+
+    /**
+     * Проверяет период выписки до начала ответа: после того как поток выписки
+     * открыт, статус и заголовки ответа уже не изменить.
+     */
+    public void checkStatementPeriod(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+    }
+
+    /**
+     * Пишет выписку по карте за период [from, to] прямо в поток ответа.
+     * Строки читаются курсором внутри read-only транзакции, поэтому
+     * расход памяти не зависит от длины истории карты.
+     */
+    @Transactional(readOnly = true)
+    public void exportStatement(Long cardId, LocalDate from, LocalDate to, Format format,
+                                OutputStream output) throws IOException {
+        try (Stream<TransactionDTO> rows = transactionRepository.streamStatement(
+                cardId, from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+             TransactionStatementWriter writer = new TransactionStatementWriter(output, format, objectMapper)) {
+            Iterator<TransactionDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+            }
+        }
     }
 
     @Transactional
     public TransactionDTO save(TransactionCreateDTO createDTO, Long cardId) {
+        return save(createDTO, cardId, IdempotencyService.Recorder.none());
+    }
+
+    /**
+     * Создаёт транзакцию под ключом идемпотентности: ключ занимается до проверки
+     * лимита, результат записывается под ним до коммита.
+     */
+    @Transactional
+    public TransactionDTO save(TransactionCreateDTO createDTO, Long cardId,
+                               IdempotencyService.Recorder<TransactionDTO> recorder) {
+        recorder.claim();
         Card card = cardRepository.findById(cardId)
                 .orElse(null);
 
@@ -65,8 +131,15 @@ public class TransactionService {
 
         Long id = transactionRepository.save(transaction).getId();
         transaction.setId(id);
+        outboxService.transactionsCreated(List.of(transaction));
+        cardDailyTotalService.transactionsCreated(List.of(transaction));
 
-        return transactionMapper.map(transaction);
+        limitService.recordSpending(cardId, transaction.getType(),
+                transaction.getTransactionDate().toLocalDate(), transaction.getAmount());
+
+        TransactionDTO transactionDTO = transactionMapper.map(transaction);
+        recorder.record(transactionDTO);
+        return transactionDTO;
     }
 
     @Transactional
@@ -74,9 +147,18 @@ public class TransactionService {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id " + id ));
 
+        Long cardId = transaction.getCard().getId();
+        limitService.recordSpending(cardId, transaction.getType(),
+                transaction.getTransactionDate().toLocalDate(), transaction.getAmount().negate());
+
+        TransactionDTO previous = transactionMapper.map(transaction);
         transactionMapper.update(updateDTO, transaction);
 
         transactionRepository.save(transaction);
+        outboxService.transactionUpdated(previous, transaction);
+        cardDailyTotalService.transactionUpdated(previous, transaction);
+        limitService.recordSpending(cardId, transaction.getType(),
+                transaction.getTransactionDate().toLocalDate(), transaction.getAmount());
 
         return transactionMapper.map(transaction);
     }
@@ -86,17 +168,22 @@ public class TransactionService {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id " + id ));
 
+        limitService.recordSpending(transaction.getCard().getId(), transaction.getType(),
+                transaction.getTransactionDate().toLocalDate(), transaction.getAmount().negate());
+        outboxService.transactionDeleted(transaction);
+        cardDailyTotalService.transactionDeleted(transaction);
         transactionRepository.delete(transaction);
     }
 
+    // Суммы читаются из дневных итогов, число строк зависит от длины периода, а не от числа транзакций
     public BigDecimal getDailyTransactionSum(Long cardId,
                                              LocalDate date) {
-        return transactionRepository.getDailyTransactionsSum(cardId, date);
+        return cardDailyTotalService.getSpending(cardId, date, date);
     }
 
     public BigDecimal getTransactionSumForPeriod(Long cardId,
                                                  LocalDate startDate,
                                                  LocalDate endDate) {
-        return transactionRepository.getTransactionsSumForPeriod(cardId, startDate, endDate);
+        return cardDailyTotalService.getSpending(cardId, startDate, endDate);
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package org.example.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.dto.transaction.TransactionDTO;
+import org.example.app.service.TransactionImportService.Format;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Построчно пишет выписку по карте в формате NDJSON или CSV.
+ * Формат строк совпадает с форматом загрузки транзакций.
+ */
+class TransactionStatementWriter implements Closeable {
+    static final String CSV_HEADER = "id,cardId,amount,description,type,transactionDate";
+
+    private final BufferedWriter writer;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+
+    TransactionStatementWriter(OutputStream output, Format format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+        }
+    }
+
+    void write(TransactionDTO transaction) throws IOException {
+        if (format == Format.CSV) {
+            writer.write(String.valueOf(transaction.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(transaction.getCardId()));
+            writer.write(',');
+            writer.write(transaction.getAmount().toPlainString());
+            writer.write(',');
+            writer.write(escapeCsv(transaction.getDescription()));
+            writer.write(',');
+            writer.write(transaction.getType().name());
+            writer.write(',');
+            writer.write(transaction.getTransactionDate().toString());
+        } else {
+            writer.write(objectMapper.writeValueAsString(transaction));
+        }
+        writer.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Поток ответа закрывает контейнер, здесь только сбрасываем буфер
+        writer.flush();
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
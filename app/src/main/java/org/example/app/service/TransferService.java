@@ -1,18 +1,41 @@
 package org.example.app.service;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.example.app.component.BankMetrics;
+import org.example.app.component.TransferProperties;
+import org.example.app.component.TransferProperties.ConcurrencyMode;
+import org.example.app.dto.BatchTransferDTO;
+import org.example.app.dto.BatchTransferReportDTO;
+import org.example.app.dto.BatchTransferResultDTO;
+import org.example.app.dto.BatchTransferResultDTO.Status;
 import org.example.app.dto.TransferDTO;
 import org.example.app.exception.InsufficientFundsException;
+import org.example.app.exception.LimitExceededException;
 import org.example.app.exception.ResourceNotFoundException;
 import org.example.app.model.Card;
 import org.example.app.model.Transaction;
 import org.example.app.model.TransactionType;
 import org.example.app.repository.CardRepository;
 import org.example.app.repository.TransactionRepository;
+import org.example.app.service.LimitService.LimitBudget;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,15 +43,274 @@ public class TransferService {
     private final TransactionRepository transactionRepository;
     private final CardRepository cardRepository;
     private final LimitService limitService;
+    private final OutboxService outboxService;
+    private final CardDailyTotalService cardDailyTotalService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final BankMetrics metrics;
 
-    @Transactional
+    /**
+     * Выполняет перевод в отдельной транзакции способом, заданным
+     * {@code transfer.concurrency-mode}. При конфликте конкурентных переводов
+     * (версия карты, deadlock, таймаут блокировки) транзакция повторяется
+     * с экспоненциальной задержкой. Время перевода вместе с повторами
+     * пишется в {@code bank.transfers} с режимом и исходом.
+     */
     public void transferBetweenOwnCards(Long userId, TransferDTO transferDTO) {
-        Card fromCard = cardRepository.findByIdAndUserId(transferDTO.getFromCardId(), userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Card not found for id "
-                        + transferDTO.getFromCardId()));
-        Card toCard = cardRepository.findByIdAndUserId(transferDTO.getToCardId(), userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Card not found for id "
-                        + transferDTO.getToCardId()));
+        transferBetweenOwnCards(userId, transferDTO, IdempotencyService.Recorder.none());
+    }
+
+    /**
+     * Перевод под ключом идемпотентности: ключ занимается первым действием транзакции,
+     * до блокировки карт и проверки лимитов, а ответ записывается после перевода.
+     * При повторе транзакции оба шага выполняются повторно вместе с переводом.
+     */
+    public void transferBetweenOwnCards(Long userId, TransferDTO transferDTO,
+                                        IdempotencyService.Recorder<Void> recorder) {
+        ConcurrencyMode mode = transferProperties.getConcurrencyMode();
+        Timer.Sample sample = metrics.startTimer();
+        String outcome = BankMetrics.OUTCOME_ERROR;
+        try {
+            executeWithRetry(() -> transactionTemplate.executeWithoutResult(status -> {
+                recorder.claim();
+                if (mode == ConcurrencyMode.ATOMIC) {
+                    transferAtomically(userId, transferDTO);
+                } else {
+                    transfer(userId, transferDTO);
+                }
+                recorder.record(null);
+            }));
+            outcome = BankMetrics.OUTCOME_SUCCESS;
+        } catch (InsufficientFundsException e) {
+            outcome = BankMetrics.OUTCOME_INSUFFICIENT_FUNDS;
+            metrics.insufficientFunds();
+            throw e;
+        } catch (LimitExceededException e) {
+            outcome = BankMetrics.OUTCOME_LIMIT_EXCEEDED;
+            throw e;
+        } catch (ConcurrencyFailureException e) {
+            outcome = BankMetrics.OUTCOME_CONFLICT;
+            throw e;
+        } finally {
+            sample.stop(metrics.transferTimer(mode, outcome));
+        }
+    }
+
+    /**
+     * Выполняет пакет переводов между своими картами одной транзакцией. Все карты
+     * пакета блокируются одним запросом в порядке возрастания id, балансы и лимиты
+     * проверяются по нарастающим итогам в памяти, проводки пишутся одним пакетом JDBC.
+     * В режиме ALL_OR_NOTHING первый ошибочный перевод откатывает весь пакет,
+     * в BEST_EFFORT он отклоняется, а остальные фиксируются.
+     */
+    public BatchTransferReportDTO transferBatch(Long userId, BatchTransferDTO batch) {
+        return transferBatch(userId, batch, IdempotencyService.Recorder.none());
+    }
+
+    /**
+     * Пакет переводов под ключом идемпотентности: ключ занимается до блокировки карт,
+     * готовый отчёт записывается под ним в той же транзакции.
+     */
+    public BatchTransferReportDTO transferBatch(Long userId, BatchTransferDTO batch,
+                                                IdempotencyService.Recorder<BatchTransferReportDTO> recorder) {
+        Timer.Sample sample = metrics.startTimer();
+        String outcome = BankMetrics.OUTCOME_ERROR;
+        try {
+            AtomicReference<BatchTransferReportDTO> report = new AtomicReference<>();
+            executeWithRetry(() -> transactionTemplate.executeWithoutResult(status -> {
+                recorder.claim();
+                report.set(executeBatch(userId, batch));
+                recorder.record(report.get());
+            }));
+            outcome = BankMetrics.OUTCOME_SUCCESS;
+            return report.get();
+        } catch (InsufficientFundsException e) {
+            outcome = BankMetrics.OUTCOME_INSUFFICIENT_FUNDS;
+            throw e;
+        } catch (LimitExceededException e) {
+            outcome = BankMetrics.OUTCOME_LIMIT_EXCEEDED;
+            throw e;
+        } catch (ConcurrencyFailureException e) {
+            outcome = BankMetrics.OUTCOME_CONFLICT;
+            throw e;
+        } finally {
+            sample.stop(metrics.batchTransferTimer(batch.getMode(), outcome));
+        }
+    }
+
+    private BatchTransferReportDTO executeBatch(Long userId, BatchTransferDTO batch) {
+        List<TransferDTO> transfers = batch.getTransfers();
+        boolean allOrNothing = batch.getMode() == BatchTransferDTO.Mode.ALL_OR_NOTHING;
+
+        Set<Long> cardIds = new TreeSet<>();
+        for (TransferDTO transfer : transfers) {
+            cardIds.add(transfer.getFromCardId());
+            cardIds.add(transfer.getToCardId());
+        }
+        Map<Long, Card> cards = cardRepository.findAllByIdInAndUserIdForUpdate(cardIds, userId).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+
+        // Нарастающие итоги балансов и лимитов по картам пакета
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        cards.forEach((id, card) -> balances.put(id, card.getBalance()));
+        Map<Long, LimitBudget> budgets = new HashMap<>();
+
+        LocalDateTime now = LocalDateTime.now();
+        BatchTransferReportDTO report = new BatchTransferReportDTO();
+        List<Transaction> transactions = new ArrayList<>();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferDTO transfer = transfers.get(i);
+            Long fromCardId = transfer.getFromCardId();
+            Long toCardId = transfer.getToCardId();
+            BigDecimal amount = transfer.getAmount();
+
+            RuntimeException error = checkBatchItem(i, transfer, cards, balances, budgets, now.toLocalDate());
+            if (error != null) {
+                if (allOrNothing) {
+                    throw error;
+                }
+                report.getItems().add(new BatchTransferResultDTO(i, fromCardId, toCardId,
+                        Status.REJECTED, error.getMessage()));
+                report.setRejected(report.getRejected() + 1);
+                continue;
+            }
+
+            balances.merge(fromCardId, amount.negate(), BigDecimal::add);
+            balances.merge(toCardId, amount, BigDecimal::add);
+            budgets.computeIfAbsent(toCardId, limitService::loadBudget)
+                    .consume(TransactionType.TRANSFER_IN, now.toLocalDate(), amount);
+
+            transactions.add(ledgerRow(cards.get(fromCardId), amount,
+                    "Transfer to card " + toCardId, TransactionType.TRANSFER_OUT, now));
+            transactions.add(ledgerRow(cards.get(toCardId), amount,
+                    "Transfer from card " + fromCardId, TransactionType.TRANSFER_IN, now));
+            report.getItems().add(new BatchTransferResultDTO(i, fromCardId, toCardId, Status.COMPLETED, null));
+            report.setCompleted(report.getCompleted() + 1);
+        }
+        report.setTotal(transfers.size());
+
+        // Балансы заблокированных карт запишутся при фиксации, проводки - одним пакетом
+        balances.forEach((id, balance) -> cards.get(id).setBalance(balance));
+        transactionRepository.saveAll(transactions);
+        outboxService.transactionsCreated(transactions);
+        cardDailyTotalService.transactionsCreated(transactions);
+        budgets.values().forEach(limitService::recordSpending);
+        return report;
+    }
+
+    /**
+     * Проверяет перевод пакета по итогам предыдущих переводов. Возвращает
+     * исключение, которое описывает причину отказа, или null.
+     */
+    private RuntimeException checkBatchItem(int index, TransferDTO transfer, Map<Long, Card> cards,
+                                            Map<Long, BigDecimal> balances, Map<Long, LimitBudget> budgets,
+                                            LocalDate date) {
+        Long fromCardId = transfer.getFromCardId();
+        Long toCardId = transfer.getToCardId();
+        String prefix = "Transfer #" + index + ": ";
+
+        if (fromCardId.equals(toCardId)) {
+            return new IllegalArgumentException(prefix + "Cannot transfer to the same card");
+        }
+        if (!cards.containsKey(fromCardId)) {
+            return new ResourceNotFoundException(prefix + "Card not found for id " + fromCardId);
+        }
+        if (!cards.containsKey(toCardId)) {
+            return new ResourceNotFoundException(prefix + "Card not found for id " + toCardId);
+        }
+        if (balances.get(fromCardId).compareTo(transfer.getAmount()) < 0) {
+            metrics.insufficientFunds();
+            return new InsufficientFundsException(prefix + "Insufficient funds on source card");
+        }
+        if (!budgets.computeIfAbsent(fromCardId, limitService::loadBudget)
+                .tryConsume(TransactionType.TRANSFER_OUT, date, transfer.getAmount())) {
+            return new LimitExceededException(prefix + "Exceeding the limit");
+        }
+        return null;
+    }
+
+    private static Transaction ledgerRow(Card card, BigDecimal amount, String description,
+                                         TransactionType type, LocalDateTime date) {
+        Transaction transaction = new Transaction();
+        transaction.setCard(card);
+        transaction.setAmount(amount);
+        transaction.setDescription(description);
+        transaction.setType(type);
+        transaction.setTransactionDate(date);
+        return transaction;
+    }
+
+    /**
+     * Перевод без чтения карт: два условных UPDATE баланса и пакетная вставка проводок.
+     * UPDATE выполняются в порядке возрастания id карт. Лимиты проверяются после
+     * списания, когда строка карты-источника уже заблокирована, поэтому
+     * конкурентные переводы с одной карты видят счётчики друг друга.
+     */
+    private void transferAtomically(Long userId, TransferDTO transferDTO) {
+        Long fromCardId = transferDTO.getFromCardId();
+        Long toCardId = transferDTO.getToCardId();
+        BigDecimal amount = transferDTO.getAmount();
+
+        // Проверяем, что это не одна и та же карта
+        if (fromCardId.equals(toCardId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same card");
+        }
+
+        if (fromCardId < toCardId) {
+            withdraw(userId, fromCardId, amount);
+            deposit(userId, toCardId, amount);
+        } else {
+            deposit(userId, toCardId, amount);
+            withdraw(userId, fromCardId, amount);
+        }
+
+        // Проверяем лимиты (если есть)
+        limitService.checkLimit(fromCardId, amount);
+
+        LocalDateTime now = LocalDateTime.now();
+        Transaction withdrawal = new Transaction();
+        withdrawal.setCard(cardRepository.getReferenceById(fromCardId));
+        withdrawal.setAmount(amount);
+        withdrawal.setDescription("Transfer to card " + toCardId);
+        withdrawal.setType(TransactionType.TRANSFER_OUT);
+        withdrawal.setTransactionDate(now);
+
+        Transaction deposit = new Transaction();
+        deposit.setCard(cardRepository.getReferenceById(toCardId));
+        deposit.setAmount(amount);
+        deposit.setDescription("Transfer from card " + fromCardId);
+        deposit.setType(TransactionType.TRANSFER_IN);
+        deposit.setTransactionDate(now);
+
+        transactionRepository.saveAll(List.of(withdrawal, deposit));
+        outboxService.transactionsCreated(List.of(withdrawal, deposit));
+        cardDailyTotalService.transactionsCreated(List.of(withdrawal, deposit));
+
+        // Обновляем счётчики лимитов
+        limitService.recordSpending(fromCardId, withdrawal.getType(), now.toLocalDate(), amount);
+        limitService.recordSpending(toCardId, deposit.getType(), now.toLocalDate(), amount);
+    }
+
+    private void withdraw(Long userId, Long cardId, BigDecimal amount) {
+        if (cardRepository.withdraw(cardId, userId, amount) == 0) {
+            // Разбираем причину только на медленном пути
+            cardRepository.findByIdAndUserId(cardId, userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Card not found for id " + cardId));
+            throw new InsufficientFundsException("Insufficient funds on source card");
+        }
+    }
+
+    private void deposit(Long userId, Long cardId, BigDecimal amount) {
+        if (cardRepository.deposit(cardId, userId, amount) == 0) {
+            throw new ResourceNotFoundException("Card not found for id " + cardId);
+        }
+    }
+
+    private void transfer(Long userId, TransferDTO transferDTO) {
+        Card[] cards = loadCards(userId, transferDTO);
+        Card fromCard = cards[0];
+        Card toCard = cards[1];
 
         // Проверяем, что это не одна и та же карта
         if (fromCard.getId().equals(toCard.getId())) {
@@ -47,14 +329,14 @@ public class TransferService {
         Transaction withdrawal = new Transaction();
         withdrawal.setCard(fromCard);
         withdrawal.setAmount(transferDTO.getAmount());
-        withdrawal.setDescription("Transfer to card " + toCard.getCardNumber());
+        withdrawal.setDescription("Transfer to card " + toCard.getId());
         withdrawal.setType(TransactionType.TRANSFER_OUT);
         withdrawal.setTransactionDate(LocalDateTime.now());
 
         Transaction deposit = new Transaction();
         deposit.setCard(toCard);
         deposit.setAmount(transferDTO.getAmount());
-        deposit.setDescription("Transfer from card " + fromCard.getCardNumber());
+        deposit.setDescription("Transfer from card " + fromCard.getId());
         deposit.setType(TransactionType.TRANSFER_IN);
         deposit.setTransactionDate(LocalDateTime.now());
 
@@ -67,5 +349,66 @@ public class TransferService {
         cardRepository.save(toCard);
         transactionRepository.save(withdrawal);
         transactionRepository.save(deposit);
+        outboxService.transactionsCreated(List.of(withdrawal, deposit));
+        cardDailyTotalService.transactionsCreated(List.of(withdrawal, deposit));
+
+        // Обновляем счётчики лимитов
+        limitService.recordSpending(fromCard.getId(), withdrawal.getType(),
+                withdrawal.getTransactionDate().toLocalDate(), withdrawal.getAmount());
+        limitService.recordSpending(toCard.getId(), deposit.getType(),
+                deposit.getTransactionDate().toLocalDate(), deposit.getAmount());
+    }
+
+    private Card[] loadCards(Long userId, TransferDTO transferDTO) {
+        Long fromCardId = transferDTO.getFromCardId();
+        Long toCardId = transferDTO.getToCardId();
+
+        if (transferProperties.getConcurrencyMode() == ConcurrencyMode.OPTIMISTIC) {
+            Card fromCard = cardRepository.findByIdAndUserId(fromCardId, userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Card not found for id " + fromCardId));
+            Card toCard = cardRepository.findByIdAndUserId(toCardId, userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Card not found for id " + toCardId));
+            return new Card[]{fromCard, toCard};
+        }
+
+        Map<Long, Card> locked = cardRepository.findAllByIdInAndUserIdForUpdate(List.of(fromCardId, toCardId), userId)
+                .stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        Card fromCard = locked.get(fromCardId);
+        if (fromCard == null) {
+            throw new ResourceNotFoundException("Card not found for id " + fromCardId);
+        }
+        Card toCard = locked.get(toCardId);
+        if (toCard == null) {
+            throw new ResourceNotFoundException("Card not found for id " + toCardId);
+        }
+        return new Card[]{fromCard, toCard};
+    }
+
+    private void executeWithRetry(Runnable action) {
+        long backoff = transferProperties.getInitialBackoff().toMillis();
+        long maxBackoff = transferProperties.getMaxBackoff().toMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                action.run();
+                return;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= transferProperties.getMaxAttempts()) {
+                    throw e;
+                }
+                sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1), e);
+                backoff = Math.min(backoff * 2, maxBackoff);
+            }
+        }
+    }
+
+    private void sleep(long millis, RuntimeException cause) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
     }
 }
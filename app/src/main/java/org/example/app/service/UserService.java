@@ -2,6 +2,7 @@ package org.example.app.service;
 
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
+import org.example.app.component.UserUtils;
 import org.example.app.dto.AuthDTO;
 import org.example.app.dto.user.UserCreateDTO;
 import org.example.app.dto.user.UserDTO;
@@ -15,19 +16,18 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final UserUtils userUtils;
 
+    @Transactional(readOnly = true)
     public List<UserDTO> findAll() {
         List<User> users = userRepository.findAll();
-        return users.stream()
-                .map(userMapper::map)
-                .collect(Collectors.toList());
+        return userMapper.map(users);
     }
 
     public UserDTO findById(Long id) {
@@ -62,6 +62,7 @@ public class UserService {
     public UserDTO update(Long id, UserUpdateDTO dto) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
+        userUtils.evict(user.getEmail());
         userMapper.update(dto, user);
         userRepository.save(user);
         return userMapper.map(user);
@@ -72,5 +73,6 @@ public class UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
         userRepository.delete(user);
+        userUtils.evict(user.getEmail());
     }
 }
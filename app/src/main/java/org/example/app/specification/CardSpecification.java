@@ -1,16 +1,20 @@
 package org.example.app.specification;
 
+import lombok.RequiredArgsConstructor;
+import org.example.app.component.CardNumbers;
+import org.example.app.component.CryptoEncoder;
 import org.example.app.dto.card.CardParamDTO;
 import org.example.app.model.Card;
 import org.example.app.model.StatusCard;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
-import java.sql.Date;
 import java.time.LocalDate;
 
 @Component
+@RequiredArgsConstructor
 public class CardSpecification {
+    private final CryptoEncoder encoder;
 
     public Specification<Card> build(CardParamDTO params) {
         return withUserId(params.getUserId())
@@ -32,10 +36,17 @@ public class CardSpecification {
                 : cb.equal(root.get("status"), status);
     }
 
+    // Номер хранится зашифрованным: 4 цифры ищем по card_last4, полный номер - по HMAC-индексу
     private Specification<Card> withCardNumber(String cardNumber) {
-        return (root, query, cb) -> cardNumber == null
-                ? cb.conjunction()
-                : cb.like(root.get("cardNumber"), "%" + cardNumber + "%");
+        String normalized = CardNumbers.normalize(cardNumber);
+        if (normalized == null || normalized.isEmpty()) {
+            return (root, query, cb) -> cb.conjunction();
+        }
+        if (normalized.length() == 4) {
+            return (root, query, cb) -> cb.equal(root.get("cardLast4"), normalized);
+        }
+        String hash = encoder.hash(normalized);
+        return (root, query, cb) -> cb.equal(root.get("cardNumberHash"), hash);
     }
 
     private Specification<Card> withCardHolderName(String cardHolderName) {
@@ -44,9 +55,12 @@ public class CardSpecification {
                 : cb.like(root.get("cardHolderName"),"%" + cardHolderName + "%");
     }
 
+    // День выпуска задаётся полуоткрытым интервалом, чтобы условие шло по индексу на created_at
     private Specification<Card> withCardDate(LocalDate date) {
         return (root, query, cb) -> date == null
                 ? cb.conjunction()
-                : cb.equal(root.get("createdAt").as(Date.class), date);
+                : cb.and(
+                        cb.greaterThanOrEqualTo(root.get("createdAt"), date.atStartOfDay()),
+                        cb.lessThan(root.get("createdAt"), date.plusDays(1).atStartOfDay()));
     }
 }
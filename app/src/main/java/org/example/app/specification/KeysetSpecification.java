@@ -0,0 +1,72 @@
+package org.example.app.specification;
+
+import jakarta.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Постраничный вывод по ключу (дата, id) в порядке убывания.
+ * Курсор - непрозрачная строка с ключом последней строки страницы.
+ */
+@Component
+public class KeysetSpecification {
+    private static final String ID = "id";
+
+    @Value("${pagination.default-size:50}")
+    private int defaultSize;
+
+    @Value("${pagination.max-size:500}")
+    private int maxSize;
+
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultSize;
+        }
+        return Math.max(1, Math.min(requested, maxSize));
+    }
+
+    public Sort sort(String dateAttribute) {
+        return Sort.by(Sort.Order.desc(dateAttribute), Sort.Order.desc(ID));
+    }
+
+    // Строки строго после курсора: date < :date OR (date = :date AND id < :id)
+    public <T> Specification<T> after(String dateAttribute, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return (root, query, cb) -> cb.conjunction();
+        }
+
+        Cursor position = decode(cursor);
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get(dateAttribute), position.date()),
+                cb.and(
+                        cb.equal(root.get(dateAttribute), position.date()),
+                        cb.lessThan(root.get(ID), position.id())));
+    }
+
+    public String encode(LocalDateTime date, Long id) {
+        String key = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decode(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf('|');
+            return new Cursor(
+                    LocalDateTime.parse(key.substring(0, separator)),
+                    Long.valueOf(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(LocalDateTime date, Long id) {
+    }
+}
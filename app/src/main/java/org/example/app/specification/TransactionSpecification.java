@@ -7,7 +7,6 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -19,6 +18,7 @@ public class TransactionSpecification {
                 .and(withAmount(params.getAmount()))
                 .and(withType(params.getType()))
                 .and(withDescription(params.getDescription()))
+                .and(withTransactionDate(params.getDate()))
                 .and(withTransactionDateAfter(params.getDateFrom()))
                 .and(withTransactionDateBefore(params.getDateTo()));
     }
@@ -59,9 +59,12 @@ public class TransactionSpecification {
                 : cb.lessThanOrEqualTo(root.get("transactionDate"), dateTo);
     }
 
+    // День задаётся полуоткрытым интервалом, чтобы условие шло по индексу на transaction_date
     private Specification<Transaction> withTransactionDate(LocalDate date) {
         return (root, query, cb) -> date == null
                 ? cb.conjunction()
-                : cb.equal(root.get("transactionDate").as(Date.class), date);
+                : cb.and(
+                        cb.greaterThanOrEqualTo(root.get("transactionDate"), date.atStartOfDay()),
+                        cb.lessThan(root.get("transactionDate"), date.plusDays(1).atStartOfDay()));
     }
 }
@@ -6,6 +6,7 @@ import org.example.app.dto.card.CardUpdateDTO;
 import org.example.app.mapper.CardMapper;
 import org.example.app.model.Card;
 import org.example.app.model.StatusCard;
+import org.example.app.repository.CardNumberRevealRepository;
 import org.example.app.repository.CardRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -28,6 +29,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -74,6 +76,9 @@ public class CardControllerIT {
     @Autowired
     private CardRepository cardRepository;
 
+    @Autowired
+    private CardNumberRevealRepository cardNumberRevealRepository;
+
     @Autowired
     private WebApplicationContext wac;
 
@@ -106,6 +111,60 @@ public class CardControllerIT {
                 .andExpect(jsonPath("$.cardNumber").value("**** **** **** 2233"));
     }
 
+    @Test
+    @DisplayName("Should return status 400 Bad Request for duplicate card number")
+    void shouldRejectDuplicateCardNumber() throws Exception {
+        cardRepository.save(cardMapper.map(createDTO));
+        createDTO.setCardNumber("1234 5678 9011 2233");
+
+        mockMvc.perform(post(BASE_URL).with(token)
+                        .param("userId", "1")
+                        .contentType(JSON_CONTENT_TYPE)
+                        .content(objectMapper.writeValueAsString(createDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should find card by last four digits of the number")
+    void shouldFindCardByLastFourDigits() throws Exception {
+        Long id = cardRepository.save(cardMapper.map(createDTO)).getId();
+
+        mockMvc.perform(get(BASE_URL).with(token)
+                        .param("cardNumber", "2233")
+                        .contentType(JSON_CONTENT_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(id));
+    }
+
+    @Test
+    @DisplayName("Should reveal full card number and write an audit record")
+    void shouldRevealCardNumberAndAudit() throws Exception {
+        Long id = cardRepository.save(cardMapper.map(createDTO)).getId();
+        long auditBefore = cardNumberRevealRepository.count();
+
+        mockMvc.perform(post(BASE_URL + "/{id}/reveal", id).with(token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardNumber").value("1234567890112233"));
+
+        assertThat(cardNumberRevealRepository.count()).isEqualTo(auditBefore + 1);
+    }
+
+    @Test
+    @DisplayName("Should keep the reveal audit record after the card is deleted")
+    void shouldKeepRevealAuditAfterCardDeleted() throws Exception {
+        Long id = cardRepository.save(cardMapper.map(createDTO)).getId();
+        mockMvc.perform(post(BASE_URL + "/{id}/reveal", id).with(token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete(BASE_URL + "/{id}", id).with(token)
+                        .param("userId", "1")
+                        .contentType(JSON_CONTENT_TYPE))
+                .andExpect(status().isNoContent());
+
+        assertThat(cardNumberRevealRepository.findAll())
+                .anySatisfy(reveal -> assertThat(reveal.getCardId()).isEqualTo(id));
+    }
+
     @Test
     @DisplayName("Should return status 400 Bad Request for invalid create data")
     void shouldReturnBadRequestForInvalidCard() throws Exception {
@@ -0,0 +1,146 @@
+package org.example.app.integration;
+
+import org.example.app.component.CardDailyTotalBackfill;
+import org.example.app.component.CryptoEncoder;
+import org.example.app.dto.transaction.TransactionCreateDTO;
+import org.example.app.dto.transaction.TransactionDTO;
+import org.example.app.dto.transaction.TransactionUpdateDTO;
+import org.example.app.model.Card;
+import org.example.app.model.TransactionType;
+import org.example.app.model.User;
+import org.example.app.repository.CardDailyTotalRepository;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.repository.UserRepository;
+import org.example.app.service.TransactionService;
+import org.example.app.util.EntityGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class CardDailyTotalIT {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardDailyTotalBackfill backfill;
+
+    @Autowired
+    private CardDailyTotalRepository cardDailyTotalRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CryptoEncoder encoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final EntityGenerator entityGenerator = new EntityGenerator();
+    private User user;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(entityGenerator.createUser());
+        card = entityGenerator.createCard();
+        card.setCardNumber(encoder.encrypt("4000000000000002"));
+        card.setUser(user);
+        card.setTransactions(new ArrayList<>());
+        card.setLimits(new ArrayList<>());
+        card = cardRepository.save(card);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        cardRepository.deleteAllInBatch();
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    @DisplayName("Daily totals follow inserts, updates and deletes of transactions")
+    void totalsFollowLedger() {
+        LocalDate today = LocalDate.now();
+        TransactionDTO payment = transactionService.save(
+                new TransactionCreateDTO(BigDecimal.valueOf(100), "payment", TransactionType.PAYMENT), card.getId());
+        TransactionDTO withdrawal = transactionService.save(
+                new TransactionCreateDTO(BigDecimal.valueOf(40), "cash", TransactionType.WITHDRAWAL), card.getId());
+        transactionService.save(
+                new TransactionCreateDTO(BigDecimal.valueOf(500), "salary", TransactionType.DEPOSIT), card.getId());
+        assertMatchesLedger(today);
+
+        transactionService.update(payment.getId(), new TransactionUpdateDTO(BigDecimal.valueOf(70), "payment",
+                today.minusDays(1).atTime(10, 0), TransactionType.TRANSFER));
+        assertMatchesLedger(today);
+        assertMatchesLedger(today.minusDays(1));
+
+        transactionService.delete(withdrawal.getId());
+        assertMatchesLedger(today);
+        assertThat(transactionService.getTransactionSumForPeriod(card.getId(), today.minusDays(1), today))
+                .isEqualByComparingTo("70");
+    }
+
+    @Test
+    @DisplayName("Backfill restores daily totals from the transactions table")
+    void backfillRestoresTotals() {
+        LocalDate today = LocalDate.now();
+        transactionService.save(
+                new TransactionCreateDTO(BigDecimal.valueOf(100), "payment", TransactionType.PAYMENT), card.getId());
+        jdbcTemplate.update("DELETE FROM card_daily_totals");
+
+        backfill.backfill(null, YearMonth.now());
+
+        assertMatchesLedger(today);
+        assertThat(cardDailyTotalRepository.findTypeTotals(card.getId(), today, today))
+                .singleElement()
+                .satisfies(total -> assertThat(total.getTransactionCount()).isEqualTo(1L));
+    }
+
+    private void assertMatchesLedger(LocalDate date) {
+        assertThat(transactionService.getDailyTransactionSum(card.getId(), date))
+                .isEqualByComparingTo(transactionRepository.getDailyTransactionsSum(card.getId(), date));
+    }
+}
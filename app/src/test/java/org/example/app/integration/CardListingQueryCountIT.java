@@ -0,0 +1,162 @@
+package org.example.app.integration;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.app.component.CryptoEncoder;
+import org.example.app.dto.CursorPageDTO;
+import org.example.app.dto.card.CardDTO;
+import org.example.app.dto.card.CardParamDTO;
+import org.example.app.dto.user.UserDTO;
+import org.example.app.model.Card;
+import org.example.app.model.Limit;
+import org.example.app.model.Transaction;
+import org.example.app.model.User;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.repository.UserRepository;
+import org.example.app.service.CardService;
+import org.example.app.service.UserService;
+import org.example.app.util.EntityGenerator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class CardListingQueryCountIT {
+    private static final int CARDS = 1000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> true);
+        registry.add("pagination.max-size", () -> CARDS);
+    }
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LimitRepository limitRepository;
+
+    @Autowired
+    private CryptoEncoder encoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final EntityGenerator entityGenerator = new EntityGenerator();
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        user = userRepository.save(entityGenerator.createUser());
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            Card card = entityGenerator.createCard();
+            card.setCardNumber(encoder.encrypt(String.format("4000%012d", i)));
+            card.setUser(user);
+            card.setTransactions(new ArrayList<>());
+            card.setLimits(new ArrayList<>());
+            cards.add(card);
+        }
+        cards = cardRepository.saveAll(cards);
+
+        List<Transaction> transactions = new ArrayList<>();
+        List<Limit> limits = new ArrayList<>();
+        for (int i = 0; i < CARDS; i += 10) {
+            transactions.add(entityGenerator.createTransaction(cards.get(i)));
+            transactions.add(entityGenerator.createTransaction(cards.get(i)));
+            Limit limit = entityGenerator.createLimit();
+            limit.setCard(cards.get(i));
+            limits.add(limit);
+        }
+        transactionRepository.saveAll(transactions);
+        limitRepository.saveAll(limits);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        limitRepository.deleteAllInBatch();
+        cardRepository.deleteAllInBatch();
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    @DisplayName("Listing 1000 cards runs one query for cards and one per child id collection")
+    void cardListingDoesNotLoadChildrenPerCard() {
+        statistics.clear();
+
+        CursorPageDTO<CardDTO> page = cardService.findAll(new CardParamDTO(), null, CARDS, false);
+
+        assertThat(page.getItems()).hasSize(CARDS);
+        assertThat(page.getItems())
+                .filteredOn(card -> !card.getTransactionIds().isEmpty())
+                .hasSize(CARDS / 10)
+                .allSatisfy(card -> {
+                    assertThat(card.getTransactionIds()).hasSize(2);
+                    assertThat(card.getLimitIds()).hasSize(1);
+                });
+        // Карты, id транзакций, id лимитов
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityFetchCount()).isZero();
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Listing users runs one query for users and one for their card ids")
+    void userListingDoesNotLoadCardsPerUser() {
+        statistics.clear();
+
+        List<UserDTO> users = userService.findAll();
+
+        assertThat(users)
+                .anySatisfy(user -> assertThat(user.getCardIds()).hasSize(CARDS));
+        // Пользователи, id карт
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+}
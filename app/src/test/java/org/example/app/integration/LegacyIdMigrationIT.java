@@ -0,0 +1,224 @@
+package org.example.app.integration;
+
+import liquibase.Scope;
+import liquibase.command.CommandScope;
+import liquibase.command.core.UpdateCommandStep;
+import liquibase.command.core.helpers.DbUrlConnectionCommandStep;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.example.app.model.Card;
+import org.example.app.model.Transaction;
+import org.example.app.model.User;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.repository.UserRepository;
+import org.example.app.service.LimitService;
+import org.example.app.util.EntityGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверяет миграции на базе, где карты и транзакции созданы до перехода на последовательности:
+ * сначала применяется схема до V7 и заполняется данными с id из identity-колонок,
+ * затем приложение при старте применяет остальные миграции, в том числе перенос транзакций
+ * в партиционированную таблицу и пересчёт счётчиков лимитов.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class LegacyIdMigrationIT {
+    private static final String LEGACY_CHANGELOG = "db/changelog/test/before-pooled-sequences.yaml";
+    private static final int LEGACY_CARDS = 3;
+    private static final int LEGACY_TRANSACTIONS = 5;
+    private static final int LEGACY_LIMIT_AGE_DAYS = 40;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LimitService limitService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final EntityGenerator entityGenerator = new EntityGenerator();
+
+    @BeforeAll
+    static void populateLegacySchema() throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            Scope.child(Scope.Attr.resourceAccessor.name(), new ClassLoaderResourceAccessor(), () ->
+                    new CommandScope(UpdateCommandStep.COMMAND_NAME)
+                            .addArgumentValue(DbUrlConnectionCommandStep.DATABASE_ARG, database)
+                            .addArgumentValue(UpdateCommandStep.CHANGELOG_FILE_ARG, LEGACY_CHANGELOG)
+                            .execute());
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("INSERT INTO users (first_name, last_name, email, password, role) " +
+                        "VALUES ('Legacy', 'User', 'legacy@example.com', 'password', 'USER')");
+                for (int i = 0; i < LEGACY_CARDS; i++) {
+                    statement.execute("INSERT INTO cards (card_number, card_holder_name, expiry_date, status, " +
+                            "balance, user_id) SELECT 'legacy-" + i + "', 'LEGACY USER', '12/30', 'ACTIVE', 100, id " +
+                            "FROM users");
+                }
+                // Счётчик до V17 хранился по дате начала лимита и не совпадает с окном лимита
+                statement.execute("INSERT INTO limits (period_type, limit_amount, period_start_date, active, card_id) " +
+                        "SELECT 'MONTHLY', 1000, CURRENT_DATE - " + LEGACY_LIMIT_AGE_DAYS + ", true, MIN(id) FROM cards");
+                statement.execute("INSERT INTO card_spend_counters (card_id, period_type, period_start, amount) " +
+                        "SELECT MIN(id), 'MONTHLY', CURRENT_DATE - " + LEGACY_LIMIT_AGE_DAYS + ", 999 FROM cards");
+                // По транзакции в месяц, чтобы V14 переносил их в разные партиции
+                for (int i = 0; i < LEGACY_TRANSACTIONS; i++) {
+                    statement.execute("INSERT INTO transactions (amount, description, transaction_date, type, card_id) " +
+                            "SELECT 10, 'legacy', now() - INTERVAL '" + i + " month', 'PAYMENT', MIN(id) FROM cards");
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Ids of new cards and transactions do not collide with ids issued before the migration")
+    void newIdsDoNotCollide() {
+        long legacyCardId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cards", Long.class);
+        long legacyTransactionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM transactions", Long.class);
+        assertThat(legacyCardId).isEqualTo(LEGACY_CARDS);
+        assertThat(legacyTransactionId).isEqualTo(LEGACY_TRANSACTIONS);
+
+        User user = userRepository.findAll().get(0);
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Card card = entityGenerator.createCard();
+            card.setUser(user);
+            card.setTransactions(new ArrayList<>());
+            card.setLimits(new ArrayList<>());
+            cards.add(card);
+        }
+        cards = cardRepository.saveAll(cards);
+
+        // Больше одного блока pooled optimizer
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            transactions.add(entityGenerator.createTransaction(cards.get(0)));
+        }
+        transactions = transactionRepository.saveAll(transactions);
+
+        assertThat(cards).allSatisfy(card -> assertThat(card.getId()).isGreaterThan(legacyCardId));
+        assertThat(transactions).allSatisfy(t -> assertThat(t.getId()).isGreaterThan(legacyTransactionId));
+
+        // Вставка в обход Hibernate берёт id из той же последовательности
+        Long sqlCardId = jdbcTemplate.queryForObject("INSERT INTO cards (card_number, card_holder_name, " +
+                "expiry_date, status, balance, user_id) VALUES ('sql-card', 'SQL USER', '12/30', 'ACTIVE', 0, ?) " +
+                "RETURNING id", Long.class, user.getId());
+        assertThat(sqlCardId).isGreaterThan(legacyCardId)
+                .isNotIn(cards.stream().map(Card::getId).toList());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Long.class))
+                .isEqualTo(LEGACY_TRANSACTIONS + 60L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM transactions", Long.class))
+                .isEqualTo(LEGACY_TRANSACTIONS + 60L);
+    }
+
+    @Test
+    @DisplayName("Id columns default to the sequences instead of identity")
+    void idColumnsUseSequences() {
+        List<Map<String, Object>> columns = jdbcTemplate.queryForList(
+                "SELECT table_name, is_identity, column_default FROM information_schema.columns " +
+                        "WHERE table_schema = 'public' AND table_name IN ('cards', 'transactions') " +
+                        "AND column_name = 'id'");
+
+        assertThat(columns).hasSize(2).allSatisfy(column -> {
+            assertThat(column.get("is_identity")).isEqualTo("NO");
+            String sequence = column.get("table_name").equals("cards") ? "card_seq" : "transaction_seq";
+            assertThat((String) column.get("column_default")).contains(sequence);
+        });
+    }
+
+    @Test
+    @DisplayName("Legacy transactions are moved into monthly partitions and ids stay unique within a partition")
+    void legacyTransactionsArePartitioned() {
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('transactions_legacy') IS NULL", Boolean.class))
+                .isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT tableoid) FROM transactions " +
+                "WHERE description = 'legacy'", Integer.class)).isEqualTo(LEGACY_TRANSACTIONS);
+
+        List<String> partitionsWithoutIdIndex = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'transactions'::regclass " +
+                "AND to_regclass(c.relname || '_id_key') IS NULL", String.class);
+        assertThat(partitionsWithoutIdIndex).isEmpty();
+
+        // Строка с тем же id в том же месяце не проходит, хотя первичный ключ (id, transaction_date) её допускает
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO transactions " +
+                "(id, amount, description, transaction_date, type, card_id) " +
+                "SELECT id, amount, description, transaction_date + INTERVAL '1 second', type, card_id " +
+                "FROM transactions WHERE id = 1"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Spend counters keyed by the old limit start are rebuilt for the current windows on startup")
+    void spendCountersAreRebuilt() {
+        Long cardId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM cards", Long.class);
+        List<Map<String, Object>> counters = counters(cardId);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM startup_tasks", Integer.class)).isZero();
+        assertThat(counters).isNotEmpty().noneSatisfy(counter -> assertThat(counter.get("period_start"))
+                .isEqualTo(Date.valueOf(LocalDate.now().minusDays(LEGACY_LIMIT_AGE_DAYS))));
+
+        limitService.rebuildSpendCounters(cardId);
+
+        assertThat(counters(cardId)).isEqualTo(counters);
+    }
+
+    private List<Map<String, Object>> counters(Long cardId) {
+        return jdbcTemplate.queryForList("SELECT period_type, period_start, amount FROM card_spend_counters " +
+                "WHERE card_id = ? ORDER BY period_type, period_start", cardId);
+    }
+}
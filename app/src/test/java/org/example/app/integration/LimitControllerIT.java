@@ -8,6 +8,7 @@ import org.example.app.mapper.LimitMapper;
 import org.example.app.model.Card;
 import org.example.app.model.Limit;
 import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
 import org.example.app.model.User;
 import org.example.app.repository.CardRepository;
 import org.example.app.repository.LimitRepository;
@@ -107,8 +108,10 @@ public class LimitControllerIT {
 
         token = jwt().jwt(builder -> builder.subject("admin@admin.com"));
 
-        createDTO = new LimitCreateDTO(PeriodType.DAILY, BigDecimal.valueOf(1000.00), LocalDate.now());
-        updateDTO = new LimitUpdateDTO(PeriodType.MONTHLY, BigDecimal.valueOf(5000.00),LocalDate.now().plusDays(5), true);
+        createDTO = new LimitCreateDTO(PeriodType.DAILY, BigDecimal.valueOf(1000.00), LocalDate.now(),
+                WindowAlignment.ANCHORED);
+        updateDTO = new LimitUpdateDTO(PeriodType.MONTHLY, BigDecimal.valueOf(5000.00),LocalDate.now().plusDays(5),
+                WindowAlignment.CALENDAR, true);
 
     }
 }
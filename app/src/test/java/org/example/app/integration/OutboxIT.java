@@ -0,0 +1,142 @@
+package org.example.app.integration;
+
+import org.example.app.model.OutboxEvent;
+import org.example.app.service.OutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Доставка событий outbox, когда транзакции коммитятся не в порядке id событий:
+ * блоки pooled-последовательности разных экземпляров и долгие транзакции.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class OutboxIT {
+    private static final int PARTITION = 7;
+    private static final String CONSUMER = "outbox-it";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> delivered = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE partition_no = ?", PARTITION);
+        jdbcTemplate.update("DELETE FROM outbox_offsets WHERE consumer = ?", CONSUMER);
+    }
+
+    @Test
+    @DisplayName("Event with a lower id committed later than a higher one is not skipped")
+    void lowerIdCommittedLater() throws SQLException {
+        try (Connection late = transaction(); Connection early = transaction()) {
+            // Транзакция со старым событием висит дольше, чем ждал бы settle-delay
+            insertEvent(late, 100L, LocalDateTime.now().minusMinutes(1));
+            insertEvent(early, 200L, LocalDateTime.now());
+            early.commit();
+
+            consume();
+            assertThat(delivered).isEmpty();
+
+            late.commit();
+        }
+
+        consumeUntil(2);
+        assertThat(delivered).containsExactly(100L, 200L);
+    }
+
+    @Test
+    @DisplayName("Event of a later transaction is delivered even after the offset moved past its id")
+    void laterTransactionBehindOffset() throws SQLException {
+        try (Connection first = transaction(); Connection second = transaction()) {
+            // Экземпляр с блоком id 201..250 пишет раньше экземпляра с блоком 51..100
+            insertEvent(first, 201L, LocalDateTime.now());
+            insertEvent(second, 51L, LocalDateTime.now());
+            first.commit();
+
+            consumeUntil(1);
+            assertThat(delivered).containsExactly(201L);
+
+            second.commit();
+        }
+
+        consumeUntil(2);
+        assertThat(delivered).containsExactly(201L, 51L);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_event_id FROM outbox_offsets " +
+                "WHERE consumer = ? AND partition_no = ?", Long.class, CONSUMER, PARTITION)).isEqualTo(51L);
+    }
+
+    private Connection transaction() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private void insertEvent(Connection connection, Long id, LocalDateTime createdAt) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO outbox_events " +
+                "(id, partition_no, event_type, aggregate_id, payload, created_at) VALUES (?, ?, ?, ?, '{}', ?)")) {
+            statement.setLong(1, id);
+            statement.setInt(2, PARTITION);
+            statement.setString(3, OutboxService.TRANSACTION_CREATED);
+            statement.setLong(4, PARTITION);
+            statement.setTimestamp(5, Timestamp.valueOf(createdAt));
+            statement.executeUpdate();
+        }
+    }
+
+    private void consume() {
+        outboxService.consume(CONSUMER, PARTITION, 10,
+                events -> events.stream().map(OutboxEvent::getId).forEach(delivered::add));
+    }
+
+    // Фоновые задачи приложения тоже открывают транзакции и могут ненадолго задержать события
+    private void consumeUntil(int count) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+            consume();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.app.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.component.CryptoEncoder;
+import org.example.app.component.TransactionPartitionMaintainer;
+import org.example.app.dto.card.CardParamDTO;
+import org.example.app.dto.transaction.TransactionParamDTO;
+import org.example.app.model.Card;
+import org.example.app.model.TransactionType;
+import org.example.app.model.User;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.repository.UserRepository;
+import org.example.app.service.CardService;
+import org.example.app.service.TransactionService;
+import org.example.app.util.EntityGenerator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет планы запросов лимитов и листингов. SQL перехватывается у Hibernate,
+ * планируется как generic plan с отключённым последовательным сканированием:
+ * если запрос не может идти по индексу, Postgres всё равно выберет Seq Scan,
+ * а условие на дату, обёрнутое в функцию, останется в Filter вместо Index Cond.
+ * Для партиционированной таблицы transactions отдельно проверяется отсечение партиций.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class QueryPlanIT {
+    private static final Set<String> TABLES = Set.of("transactions", "cards");
+    private static final Pattern DATE_COLUMNS = Pattern.compile("transaction_date|created_at");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                SqlRecorder.class::getName);
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CryptoEncoder encoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final EntityGenerator entityGenerator = new EntityGenerator();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private User user;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(entityGenerator.createUser());
+        card = entityGenerator.createCard();
+        card.setCardNumber(encoder.encrypt("4000000000000001"));
+        card.setUser(user);
+        card.setTransactions(new ArrayList<>());
+        card.setLimits(new ArrayList<>());
+        card = cardRepository.save(card);
+        transactionRepository.save(entityGenerator.createTransaction(card));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch();
+        cardRepository.deleteAllInBatch();
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    @DisplayName("Limit sums use a range scan on (card_id, transaction_date)")
+    void limitSumsUseIndexRange() {
+        LocalDate today = LocalDate.now();
+
+        assertIndexOnly(() -> {
+            transactionRepository.getDailyTransactionsSum(card.getId(), today);
+            transactionRepository.getTransactionsSumForPeriod(card.getId(), today.minusDays(30), today);
+        });
+    }
+
+    @Test
+    @DisplayName("Daily limit sum is pruned to the partition of its month")
+    void limitSumPrunesPartitions() {
+        LocalDate today = LocalDate.now();
+        SqlRecorder.clear();
+        transactionRepository.getDailyTransactionsSum(card.getId(), today);
+        String sql = SqlRecorder.selects().get(0);
+
+        List<JsonNode> scans = new ArrayList<>();
+        collectScans(explain(sql, "(" + card.getId() + ", '" + today.atStartOfDay() + "', '"
+                + today.plusDays(1).atStartOfDay() + "')", false).get(0).get("Plan"), scans);
+
+        Set<String> relations = new TreeSet<>();
+        scans.forEach(scan -> relations.add(scan.get("Relation Name").asText()));
+        assertThat(relations).containsExactly(TransactionPartitionMaintainer.partitionName(YearMonth.from(today)));
+    }
+
+    @Test
+    @DisplayName("Statement export uses a range scan on (card_id, transaction_date)")
+    void statementUsesIndexRange() {
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+
+        assertIndexOnly(() -> transactionTemplate.executeWithoutResult(status -> {
+            try (var rows = transactionRepository.streamStatement(card.getId(), from, from.plusDays(1))) {
+                rows.forEach(row -> {
+                });
+            }
+        }));
+    }
+
+    @Test
+    @DisplayName("Transaction listing with type and date filters uses indexes")
+    void transactionListingUsesIndexes() {
+        TransactionParamDTO params = new TransactionParamDTO();
+        params.setCardId(card.getId());
+        params.setType(TransactionType.PAYMENT);
+        params.setDate(LocalDate.now());
+
+        assertIndexOnly(() -> transactionService.findAll(params, null, 20, false));
+    }
+
+    @Test
+    @DisplayName("Card listing of a user with a creation date filter uses indexes")
+    void cardListingUsesIndexes() {
+        CardParamDTO params = new CardParamDTO();
+        params.setUserId(user.getId());
+        params.setCreatedAt(LocalDate.now());
+
+        assertIndexOnly(() -> cardService.findAll(params, null, 20, false));
+    }
+
+    private void assertIndexOnly(Runnable queries) {
+        SqlRecorder.clear();
+        queries.run();
+
+        List<String> statements = SqlRecorder.selects();
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            List<JsonNode> scans = new ArrayList<>();
+            collectScans(explain(sql, nullArguments(sql), true).get(0).get("Plan"), scans);
+
+            assertThat(scans).as(sql).isNotEmpty();
+            for (JsonNode scan : scans) {
+                assertThat(scan.get("Node Type").asText()).as(sql).isNotEqualTo("Seq Scan");
+                // Условие на дату должно быть границей диапазона индекса, а не фильтром строк
+                String filter = scan.path("Filter").asText("");
+                assertThat(DATE_COLUMNS.matcher(filter).find()).as(sql + "\nFilter: " + filter).isFalse();
+            }
+        }
+    }
+
+    /**
+     * Строит план запроса с аргументами {@code arguments}. Generic plan не зависит
+     * от значений параметров, custom plan строится под конкретные значения.
+     */
+    private JsonNode explain(String sql, String arguments, boolean generic) {
+        String json = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                statement.execute("SET plan_cache_mode = " + (generic ? "force_generic_plan" : "force_custom_plan"));
+                statement.execute("PREPARE plan_check AS " + numberParameters(sql));
+                try (ResultSet rs = statement.executeQuery(
+                        "EXPLAIN (FORMAT JSON) EXECUTE plan_check" + arguments)) {
+                    rs.next();
+                    return rs.getString(1);
+                } finally {
+                    statement.execute("DEALLOCATE plan_check");
+                    statement.execute("RESET plan_cache_mode");
+                    statement.execute("RESET enable_seqscan");
+                }
+            }
+        });
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void collectScans(JsonNode plan, List<JsonNode> scans) {
+        // Партиции transactions называются transactions_*
+        String relation = plan.path("Relation Name").asText();
+        if (TABLES.stream().anyMatch(table -> relation.equals(table) || relation.startsWith(table + "_"))) {
+            scans.add(plan);
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectScans(child, scans);
+        }
+    }
+
+    private static String numberParameters(String sql) {
+        Matcher matcher = Pattern.compile("\\?").matcher(sql);
+        StringBuilder result = new StringBuilder();
+        int index = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(result, "\\$" + (++index));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String nullArguments(String sql) {
+        long count = sql.chars().filter(c -> c == '?').count();
+        if (count == 0) {
+            return "";
+        }
+        StringJoiner arguments = new StringJoiner(", ", "(", ")");
+        for (long i = 0; i < count; i++) {
+            arguments.add("NULL");
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * Запоминает SELECT-запросы Hibernate к проверяемым таблицам.
+     */
+    public static class SqlRecorder implements StatementInspector {
+        private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+        static void clear() {
+            STATEMENTS.clear();
+        }
+
+        static List<String> selects() {
+            synchronized (STATEMENTS) {
+                return STATEMENTS.stream()
+                        .filter(sql -> sql.startsWith("select"))
+                        .filter(sql -> TABLES.stream().anyMatch(table -> sql.contains(" " + table + " ")))
+                        .toList();
+            }
+        }
+    }
+}
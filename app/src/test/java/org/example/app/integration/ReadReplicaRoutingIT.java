@@ -0,0 +1,114 @@
+package org.example.app.integration;
+
+import org.example.app.component.ReplicaLagMonitor;
+import org.example.app.component.ReplicaProperties;
+import org.example.app.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Реплику изображает второй пул к той же базе, пулы различаются по application_name.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class ReadReplicaRoutingIT {
+    private static final String APPLICATION_NAME = "SELECT current_setting('application_name')";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&ApplicationName=primary");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("datasource.replica.enabled", () -> true);
+        registry.add("datasource.replica.url", () -> postgres.getJdbcUrl() + "&ApplicationName=replica");
+        registry.add("datasource.replica.username", postgres::getUsername);
+        registry.add("datasource.replica.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private ReplicaProperties properties;
+
+    @Autowired
+    private UserService userService;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        lagMonitor.check();
+    }
+
+    @AfterEach
+    void tearDown() {
+        properties.setMaxLag(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions use the replica pool")
+    void readOnlyUsesReplica() {
+        assertThat(lagMonitor.isUsable()).isTrue();
+        assertThat(pool(readOnly)).isEqualTo("replica");
+        // Сервисный метод только читает и помечен read-only
+        readOnly.executeWithoutResult(status -> userService.findAll());
+    }
+
+    @Test
+    @DisplayName("Read-write transactions and work outside transactions use the primary pool")
+    void writesUsePrimary() {
+        assertThat(pool(readWrite)).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject(APPLICATION_NAME, String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Replica beyond the lag tolerance is bypassed")
+    void laggingReplicaIsBypassed() {
+        properties.setMaxLag(Duration.ofMillis(-1));
+        lagMonitor.check();
+
+        assertThat(lagMonitor.isUsable()).isFalse();
+        assertThat(pool(readOnly)).isEqualTo("primary");
+    }
+
+    private String pool(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject(APPLICATION_NAME, String.class));
+    }
+}
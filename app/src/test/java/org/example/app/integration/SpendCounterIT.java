@@ -0,0 +1,175 @@
+package org.example.app.integration;
+
+import org.example.app.component.CryptoEncoder;
+import org.example.app.dto.limit.LimitCreateDTO;
+import org.example.app.dto.transaction.TransactionCreateDTO;
+import org.example.app.dto.transaction.TransactionDTO;
+import org.example.app.dto.transaction.TransactionUpdateDTO;
+import org.example.app.model.Card;
+import org.example.app.model.PeriodType;
+import org.example.app.model.TransactionType;
+import org.example.app.model.User;
+import org.example.app.model.WindowAlignment;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.repository.UserRepository;
+import org.example.app.service.LimitService;
+import org.example.app.service.TransactionService;
+import org.example.app.util.EntityGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class SpendCounterIT {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private SpendCounterRepository spendCounterRepository;
+
+    @Autowired
+    private LimitService limitService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LimitRepository limitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CryptoEncoder encoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final EntityGenerator entityGenerator = new EntityGenerator();
+    private User user;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(entityGenerator.createUser());
+        card = entityGenerator.createCard();
+        card.setCardNumber(encoder.encrypt("4000000000000003"));
+        card.setUser(user);
+        card.setTransactions(new ArrayList<>());
+        card.setLimits(new ArrayList<>());
+        card = cardRepository.save(card);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM card_spend_counters");
+        limitRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+        cardRepository.deleteAllInBatch();
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    @DisplayName("Increment creates the counter row on first spending and adds to it afterwards")
+    void incrementUpserts() {
+        LocalDate today = LocalDate.now();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            spendCounterRepository.increment(card.getId(), "DAILY", today, BigDecimal.valueOf(30));
+            spendCounterRepository.increment(card.getId(), "DAILY", today, BigDecimal.valueOf(12.5));
+            spendCounterRepository.increment(card.getId(), "DAILY", today, BigDecimal.valueOf(-10));
+            spendCounterRepository.increment(card.getId(), "MONTHLY", today, BigDecimal.ONE);
+        });
+
+        assertThat(spendCounterRepository.findAmount(card.getId(), PeriodType.DAILY, today))
+                .hasValueSatisfying(amount -> assertThat(amount).isEqualByComparingTo("32.5"));
+        assertThat(spendCounterRepository.findAmount(card.getId(), PeriodType.MONTHLY, today))
+                .hasValueSatisfying(amount -> assertThat(amount).isEqualByComparingTo("1"));
+        assertThat(spendCounterRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Overwrite replaces the counter value instead of adding to it")
+    void overwriteReplaces() {
+        LocalDate today = LocalDate.now();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            spendCounterRepository.overwrite(card.getId(), "WEEKLY", today, BigDecimal.valueOf(70));
+            spendCounterRepository.overwrite(card.getId(), "WEEKLY", today, BigDecimal.valueOf(20));
+        });
+
+        assertThat(spendCounterRepository.findAmount(card.getId(), PeriodType.WEEKLY, today))
+                .hasValueSatisfying(amount -> assertThat(amount).isEqualByComparingTo("20"));
+    }
+
+    @Test
+    @DisplayName("Counters follow inserts, updates and deletes and match a rebuild from the ledger")
+    void countersFollowLedger() {
+        LocalDate today = LocalDate.now();
+        limitService.save(new LimitCreateDTO(PeriodType.DAILY, BigDecimal.valueOf(10_000), today,
+                WindowAlignment.ANCHORED), card.getId());
+
+        TransactionDTO payment = transactionService.save(
+                new TransactionCreateDTO(BigDecimal.valueOf(100), "payment", TransactionType.PAYMENT), card.getId());
+        TransactionDTO withdrawal = transactionService.save(
+                new TransactionCreateDTO(BigDecimal.valueOf(40), "cash", TransactionType.WITHDRAWAL), card.getId());
+        transactionService.save(
+                new TransactionCreateDTO(BigDecimal.valueOf(500), "salary", TransactionType.DEPOSIT), card.getId());
+        transactionService.update(payment.getId(), new TransactionUpdateDTO(BigDecimal.valueOf(70), "payment",
+                null, null));
+        transactionService.delete(withdrawal.getId());
+
+        assertThat(dailyCounter(today)).isEqualByComparingTo("70");
+
+        limitService.rebuildSpendCounters(card.getId());
+
+        assertThat(dailyCounter(today)).isEqualByComparingTo("70");
+    }
+
+    private BigDecimal dailyCounter(LocalDate date) {
+        return spendCounterRepository.findAmount(card.getId(), PeriodType.DAILY, date).orElse(BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.app.integration;
+
+import org.example.app.component.TransactionPartitionMaintainer;
+import org.example.app.component.TransactionPartitionProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class TransactionPartitionIT {
+    private static final String PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'transactions'";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private TransactionPartitionMaintainer maintainer;
+
+    @Autowired
+    private TransactionPartitionProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Partitions for the current and upcoming months exist")
+    void upcomingPartitionsAreCreated() {
+        maintainer.maintain();
+
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS, String.class);
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            assertThat(partitions).contains(TransactionPartitionMaintainer.partitionName(current.plusMonths(i)));
+        }
+        assertThat(partitions).contains("transactions_default");
+
+        String nextMonth = TransactionPartitionMaintainer.partitionName(current.plusMonths(properties.getMonthsAhead()));
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                nextMonth + "_id_key")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Partition older than the retention period is detached to the archive schema")
+    void expiredPartitionIsArchived() {
+        YearMonth expired = YearMonth.now().minusMonths(properties.getRetentionMonths() + 1);
+        String name = TransactionPartitionMaintainer.partitionName(expired);
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF transactions " +
+                "FOR VALUES FROM ('" + expired.atDay(1) + "') TO ('" + expired.plusMonths(1).atDay(1) + "')");
+
+        maintainer.maintain();
+
+        assertThat(jdbcTemplate.queryForList(PARTITIONS, String.class)).doesNotContain(name);
+        Integer archived = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_tables WHERE schemaname = ? AND tablename = ?",
+                Integer.class, properties.getArchiveSchema(), name);
+        assertThat(archived).isEqualTo(1);
+    }
+}
@@ -0,0 +1,261 @@
+package org.example.app.integration;
+
+import org.example.app.component.TransferProperties;
+import org.example.app.component.TransferProperties.ConcurrencyMode;
+import org.example.app.dto.TransferDTO;
+import org.example.app.dto.limit.LimitCreateDTO;
+import org.example.app.exception.LimitExceededException;
+import org.example.app.model.Card;
+import org.example.app.model.PeriodType;
+import org.example.app.model.StatusCard;
+import org.example.app.model.Transaction;
+import org.example.app.model.TransactionType;
+import org.example.app.model.User;
+import org.example.app.model.WindowAlignment;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.repository.UserRepository;
+import org.example.app.service.IdempotencyService;
+import org.example.app.service.IdempotencyService.IdempotentResult;
+import org.example.app.service.LimitService;
+import org.example.app.service.TransferService;
+import org.example.app.util.EntityGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+public class TransferServiceConcurrencyIT {
+    private static final int CARDS = 4;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100000.00).setScale(2);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+
+    static {
+        // Отключаем автоматическое удаление таблиц
+        System.setProperty("spring.jpa.hibernate.ddl-auto", "none");
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+        registry.add("transfer.max-attempts", () -> 50);
+    }
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private LimitService limitService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final EntityGenerator entityGenerator = new EntityGenerator();
+    private ConcurrencyMode defaultMode;
+    private User user;
+    private List<Long> cardIds;
+
+    @BeforeEach
+    void setUp() {
+        defaultMode = transferProperties.getConcurrencyMode();
+
+        user = userRepository.save(entityGenerator.createUser());
+        cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            Card card = entityGenerator.createCard();
+            card.setUser(user);
+            card.setStatus(StatusCard.ACTIVE);
+            card.setBalance(INITIAL_BALANCE);
+            card.setTransactions(new ArrayList<>());
+            card.setLimits(new ArrayList<>());
+            cardIds.add(cardRepository.save(card).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferProperties.setConcurrencyMode(defaultMode);
+        userRepository.deleteById(user.getId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    @DisplayName("Concurrent transfers conserve the total balance and match the ledger")
+    void concurrentTransfersConserveBalances(ConcurrencyMode mode) throws Exception {
+        transferProperties.setConcurrencyMode(mode);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARDS);
+                    int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                    TransferDTO transfer = new TransferDTO(cardIds.get(from), cardIds.get(to),
+                            BigDecimal.valueOf(random.nextInt(1, 100)), "stress");
+                    transferService.transferBetweenOwnCards(user.getId(), transfer);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        List<Card> cards = cardRepository.findAllById(cardIds);
+        BigDecimal total = cards.stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)));
+
+        Map<Long, BigDecimal> ledger = transactionRepository.findAll().stream()
+                .filter(t -> cardIds.contains(t.getCard().getId()))
+                .collect(Collectors.groupingBy(t -> t.getCard().getId(),
+                        Collectors.reducing(BigDecimal.ZERO, this::signedAmount, BigDecimal::add)));
+        for (Card card : cards) {
+            BigDecimal expected = INITIAL_BALANCE.add(ledger.getOrDefault(card.getId(), BigDecimal.ZERO));
+            assertThat(card.getBalance()).isEqualByComparingTo(expected);
+        }
+
+        long transfers = transactionRepository.findAll().stream()
+                .filter(t -> cardIds.contains(t.getCard().getId()))
+                .filter(t -> t.getType() == TransactionType.TRANSFER_OUT)
+                .count();
+        assertThat(transfers).isEqualTo((long) THREADS * TRANSFERS_PER_THREAD);
+    }
+
+    @Test
+    @DisplayName("Concurrent retries with the same Idempotency-Key move money once")
+    void concurrentRetriesWithSameKeyTransferOnce() throws Exception {
+        TransferDTO transfer = new TransferDTO(cardIds.get(0), cardIds.get(1), BigDecimal.TEN, "retry");
+
+        assertThat(executedOnce(transfer, "retry-key")).isEqualTo(1);
+        assertThat(cardRepository.findById(cardIds.get(0)).orElseThrow().getBalance())
+                .isEqualByComparingTo(INITIAL_BALANCE.subtract(BigDecimal.TEN));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    @DisplayName("Retries with the same Idempotency-Key replay the result when the balance covers one transfer")
+    void concurrentRetriesWithBalanceForOneTransfer(ConcurrencyMode mode) throws Exception {
+        transferProperties.setConcurrencyMode(mode);
+        Card source = cardRepository.findById(cardIds.get(0)).orElseThrow();
+        source.setBalance(BigDecimal.TEN);
+        cardRepository.save(source);
+        TransferDTO transfer = new TransferDTO(cardIds.get(0), cardIds.get(1), BigDecimal.TEN, "retry");
+
+        // Повтор не должен получить InsufficientFunds по балансу, уже списанному первым запросом
+        assertThat(executedOnce(transfer, "retry-key-" + mode)).isEqualTo(1);
+        assertThat(cardRepository.findById(cardIds.get(0)).orElseThrow().getBalance())
+                .isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(cardRepository.findById(cardIds.get(1)).orElseThrow().getBalance())
+                .isEqualByComparingTo(INITIAL_BALANCE.add(BigDecimal.TEN));
+    }
+
+    // Запускает перевод с одним ключом во всех потоках и возвращает число невоспроизведённых ответов
+    private int executedOnce(TransferDTO transfer, String key) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotentResult<Void>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return idempotencyService.execute(user.getId(), key, "transfer", transfer, Void.class,
+                        recorder -> {
+                            transferService.transferBetweenOwnCards(user.getId(), transfer, recorder);
+                            return null;
+                        });
+            }));
+        }
+
+        start.countDown();
+        int executed = 0;
+        for (Future<IdempotentResult<Void>> future : futures) {
+            if (!future.get(1, TimeUnit.MINUTES).replayed()) {
+                executed++;
+            }
+        }
+        executor.shutdown();
+        return executed;
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyMode.class)
+    @DisplayName("Limit rejection after the balance updates rolls the whole transfer back")
+    void limitRejectionRollsBack(ConcurrencyMode mode) {
+        transferProperties.setConcurrencyMode(mode);
+        limitService.save(new LimitCreateDTO(PeriodType.DAILY, BigDecimal.valueOf(100), LocalDate.now(),
+                WindowAlignment.ANCHORED), cardIds.get(1));
+
+        // Карта-источник с большим id: в ATOMIC зачисление выполняется раньше списания
+        assertThatThrownBy(() -> transferService.transferBetweenOwnCards(user.getId(),
+                new TransferDTO(cardIds.get(1), cardIds.get(0), BigDecimal.valueOf(150), "over limit")))
+                .isInstanceOf(LimitExceededException.class);
+
+        assertThat(cardRepository.findAllById(cardIds.subList(0, 2)))
+                .allSatisfy(card -> assertThat(card.getBalance()).isEqualByComparingTo(INITIAL_BALANCE));
+        assertThat(transactionRepository.findAll())
+                .noneMatch(t -> cardIds.contains(t.getCard().getId()));
+    }
+
+    private BigDecimal signedAmount(Transaction transaction) {
+        return transaction.getType() == TransactionType.TRANSFER_OUT
+                ? transaction.getAmount().negate()
+                : transaction.getAmount();
+    }
+}
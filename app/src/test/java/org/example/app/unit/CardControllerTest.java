@@ -2,8 +2,10 @@ package org.example.app.unit;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.app.controller.CardController;
+import org.example.app.dto.CursorPageDTO;
 import org.example.app.dto.card.CardCreateDTO;
 import org.example.app.dto.card.CardDTO;
+import org.example.app.dto.card.CardNumberDTO;
 import org.example.app.dto.card.CardParamDTO;
 import org.example.app.dto.card.CardUpdateDTO;
 import org.example.app.exception.ResourceNotFoundException;
@@ -28,12 +30,15 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -79,12 +84,14 @@ public class CardControllerTest {
     @DisplayName("GET /api/cards show all cards")
     void getAllCardsTest() throws Exception {
         List<CardDTO> cardDTOS = List.of(cardDTO);
-        CardParamDTO params = new CardParamDTO();
-        given(cardService.findAll(params)).willReturn(cardDTOS);
+        given(cardService.findAll(any(CardParamDTO.class), isNull(), isNull(), eq(false)))
+                .willReturn(new CursorPageDTO<>(cardDTOS, "next", null));
 
         mockMvc.perform(get(BASE_URL)
                         .contentType(JSON_CONTENT_TYPE))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(header().doesNotExist("X-Total-Count"));
     }
 
     @Test
@@ -180,4 +187,26 @@ public class CardControllerTest {
                         .contentType(JSON_CONTENT_TYPE))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @DisplayName("POST /api/cards/{id}/reveal reveal card number")
+    void revealCardNumberTest() throws Exception {
+        given(cardService.revealCardNumber(anyLong()))
+                .willReturn(new CardNumberDTO(cardDTO.getId(), "4000123412341234"));
+
+        mockMvc.perform(post(BASE_URL + "/{id}/reveal", cardDTO.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.cardNumber").value("4000123412341234"));
+    }
+
+    @Test
+    @DisplayName("POST /api/cards/{id}/reveal reveal not accessible card")
+    void revealCardNumberNotFoundTest() throws Exception {
+        given(cardService.revealCardNumber(anyLong()))
+                .willThrow(new ResourceNotFoundException("Card not found"));
+
+        mockMvc.perform(post(BASE_URL + "/{id}/reveal", cardDTO.getId()))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,121 @@
+package org.example.app.unit;
+
+import org.example.app.dto.report.SpendReportDTO;
+import org.example.app.dto.report.TypeTotalDTO;
+import org.example.app.dto.transaction.TransactionDTO;
+import org.example.app.model.Card;
+import org.example.app.model.Transaction;
+import org.example.app.model.TransactionType;
+import org.example.app.repository.CardDailyTotalRepository;
+import org.example.app.service.CardDailyTotalService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class CardDailyTotalServiceTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 15, 12, 0);
+
+    @Mock
+    private CardDailyTotalRepository cardDailyTotalRepository;
+
+    private CardDailyTotalService cardDailyTotalService;
+
+    @BeforeEach
+    void setUp() {
+        cardDailyTotalService = new CardDailyTotalService(cardDailyTotalRepository);
+    }
+
+    @Test
+    @DisplayName("Transactions of the same card, day and type are added with one upsert in key order")
+    void createdTransactionsAreGroupedByKey() {
+        cardDailyTotalService.transactionsCreated(List.of(
+                transaction(2L, 30, TransactionType.TRANSFER_IN, NOW),
+                transaction(1L, 10, TransactionType.PAYMENT, NOW),
+                transaction(1L, 20, TransactionType.PAYMENT, NOW.plusHours(1))));
+
+        InOrder order = inOrder(cardDailyTotalRepository);
+        order.verify(cardDailyTotalRepository).increment(1L, NOW.toLocalDate(), "PAYMENT",
+                BigDecimal.valueOf(30), 2);
+        order.verify(cardDailyTotalRepository).increment(2L, NOW.toLocalDate(), "TRANSFER_IN",
+                BigDecimal.valueOf(30), 1);
+        verifyNoMoreInteractions(cardDailyTotalRepository);
+    }
+
+    @Test
+    @DisplayName("Update moves the transaction out of its old day and type into the new ones")
+    void updateMovesTransactionBetweenTotals() {
+        TransactionDTO previous = new TransactionDTO(5L, BigDecimal.valueOf(40), "old",
+                NOW.minusDays(1), TransactionType.PAYMENT, 1L);
+
+        cardDailyTotalService.transactionUpdated(previous, transaction(1L, 50, TransactionType.WITHDRAWAL, NOW));
+
+        verify(cardDailyTotalRepository).increment(1L, NOW.toLocalDate().minusDays(1), "PAYMENT",
+                BigDecimal.valueOf(-40), -1);
+        verify(cardDailyTotalRepository).increment(1L, NOW.toLocalDate(), "WITHDRAWAL",
+                BigDecimal.valueOf(50), 1);
+    }
+
+    @Test
+    @DisplayName("Update that changes nothing in the totals does not touch them")
+    void unchangedUpdateIsSkipped() {
+        TransactionDTO previous = new TransactionDTO(5L, BigDecimal.valueOf(50), "old",
+                NOW.minusHours(1), TransactionType.PAYMENT, 1L);
+
+        cardDailyTotalService.transactionUpdated(previous, transaction(1L, 50, TransactionType.PAYMENT, NOW));
+
+        verifyNoMoreInteractions(cardDailyTotalRepository);
+    }
+
+    @Test
+    @DisplayName("Spend report excludes deposits")
+    void spendReportExcludesDeposits() {
+        LocalDate from = NOW.toLocalDate().withDayOfMonth(1);
+        LocalDate to = NOW.toLocalDate();
+        given(cardDailyTotalRepository.findTypeTotals(1L, from, to)).willReturn(List.of(
+                new TypeTotalDTO(TransactionType.DEPOSIT, BigDecimal.valueOf(500), 1L),
+                new TypeTotalDTO(TransactionType.PAYMENT, BigDecimal.valueOf(70), 3L),
+                new TypeTotalDTO(TransactionType.TRANSFER_OUT, BigDecimal.valueOf(30), 1L)));
+
+        SpendReportDTO report = cardDailyTotalService.getSpendReport(1L, from, to);
+
+        assertThat(report.getAmount()).isEqualByComparingTo("100");
+        assertThat(report.getTransactionCount()).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Report period with the start after the end is rejected")
+    void invalidPeriodIsRejected() {
+        LocalDate today = NOW.toLocalDate();
+
+        assertThatThrownBy(() -> cardDailyTotalService.getTotalsByType(1L, today, today.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Transaction transaction(Long cardId, long amount, TransactionType type, LocalDateTime date) {
+        Card card = new Card();
+        card.setId(cardId);
+        Transaction transaction = new Transaction();
+        transaction.setCard(card);
+        transaction.setAmount(BigDecimal.valueOf(amount));
+        transaction.setType(type);
+        transaction.setTransactionDate(date);
+        return transaction;
+    }
+}
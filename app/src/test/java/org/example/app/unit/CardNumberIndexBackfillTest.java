@@ -0,0 +1,97 @@
+package org.example.app.unit;
+
+import org.example.app.component.CardNumberIndexBackfill;
+import org.example.app.component.CryptoEncoder;
+import org.example.app.model.Card;
+import org.example.app.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class CardNumberIndexBackfillTest {
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CryptoEncoder encoder;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CardNumberIndexBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        given(encoder.decrypt(anyString())).willAnswer(invocation -> invocation.getArgument(0));
+        given(encoder.hash(anyString())).willAnswer(invocation -> "hash-" + invocation.getArgument(0));
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Duplicate card number skips only that card, the rest of the batch and later batches are indexed")
+    void duplicateCardIsSkipped() {
+        Card first = card(1L, "4000 0000 0000 0001");
+        Card duplicate = card(2L, "4000 0000 0000 0001");
+        Card third = card(3L, "4000 0000 0000 0003");
+        Card later = card(4L, "4000 0000 0000 0004");
+
+        // Порция целиком откатывается на уникальном индексе, следующие вызовы выполняются как обычно
+        given(transactionTemplate.execute(any()))
+                .willThrow(new DataIntegrityViolationException("card_number_hash"))
+                .willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        given(cardRepository.findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(0L))
+                .willReturn(List.of(first, duplicate, third));
+        given(cardRepository.findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(3L))
+                .willReturn(List.of(later));
+        given(cardRepository.findTop500ByCardNumberHashIsNullAndIdGreaterThanOrderByIdAsc(4L))
+                .willReturn(List.of());
+        given(cardRepository.saveAndFlush(any())).willAnswer(invocation -> {
+            if (invocation.getArgument(0) == duplicate) {
+                throw new DataIntegrityViolationException("card_number_hash");
+            }
+            return invocation.getArgument(0);
+        });
+
+        backfill.backfill();
+
+        verify(cardRepository).saveAndFlush(first);
+        verify(cardRepository).saveAndFlush(third);
+        verify(cardRepository, never()).saveAndFlush(later);
+        assertThat(first.getCardNumberHash()).isEqualTo("hash-4000000000000001");
+        assertThat(third.getCardLast4()).isEqualTo("0003");
+        assertThat(duplicate.getCardNumberHash()).isNull();
+        assertThat(duplicate.getCardLast4()).isNull();
+        assertThat(later.getCardNumberHash()).isEqualTo("hash-4000000000000004");
+    }
+
+    private Card card(Long id, String cardNumber) {
+        Card card = new Card();
+        card.setId(id);
+        card.setCardNumber(cardNumber);
+        return card;
+    }
+}
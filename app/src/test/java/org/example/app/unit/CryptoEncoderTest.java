@@ -0,0 +1,69 @@
+package org.example.app.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.app.component.BankMetrics;
+import org.example.app.component.CryptoEncoder;
+import org.example.app.component.EncryptionProperties;
+import org.example.app.exception.CryptoException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CryptoEncoderTest {
+    private static final String LEGACY_SECRET = "legacySecretKey12345678901234567";
+    private static final String INDEX_SECRET = "indexSecretKey123456789012345678";
+    private static final String CARD_NUMBER = "4000123412341234";
+
+    private CryptoEncoder encoder(String activeKeyId, Map<String, String> keys) {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setActiveKeyId(activeKeyId);
+        properties.setKeys(keys);
+        CryptoEncoder encoder = new CryptoEncoder(properties, new BankMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(encoder, "secretKey", LEGACY_SECRET);
+        ReflectionTestUtils.setField(encoder, "indexKey", INDEX_SECRET);
+        encoder.validateKey();
+        return encoder;
+    }
+
+    @Test
+    @DisplayName("Values are written in an envelope with the active key id")
+    void encryptsWithActiveKeyId() {
+        CryptoEncoder encoder = encoder("k1", Map.of("k1", "firstRotatedKey12345678901234567"));
+
+        String encrypted = encoder.encrypt(CARD_NUMBER);
+
+        assertThat(encrypted).startsWith("v1:k1:");
+        assertThat(encoder.decrypt(encrypted)).isEqualTo(CARD_NUMBER);
+        assertThat(encoder.needsReencryption(encrypted)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Legacy values and values of retired keys are decrypted and re-encrypted")
+    void decryptsWithAnyKnownKey() {
+        String legacy = encoder(null, Map.of()).encrypt(CARD_NUMBER);
+        String oldKey = encoder("k1", Map.of("k1", "firstRotatedKey12345678901234567")).encrypt(CARD_NUMBER);
+        CryptoEncoder rotated = encoder("k2", Map.of(
+                "k1", "firstRotatedKey12345678901234567",
+                "k2", "secondRotatedKey1234567890123456"));
+
+        assertThat(rotated.decrypt(legacy)).isEqualTo(CARD_NUMBER);
+        assertThat(rotated.decrypt(oldKey)).isEqualTo(CARD_NUMBER);
+        assertThat(rotated.needsReencryption(legacy)).isTrue();
+        assertThat(rotated.needsReencryption(oldKey)).isTrue();
+        assertThat(rotated.reencrypt(oldKey)).startsWith("v1:k2:");
+    }
+
+    @Test
+    @DisplayName("Values of unknown keys cannot be decrypted")
+    void failsOnUnknownKey() {
+        String encrypted = encoder("k9", Map.of("k9", "unknownRotatedKey123456789012345")).encrypt(CARD_NUMBER);
+        CryptoEncoder encoder = encoder("k1", Map.of("k1", "firstRotatedKey12345678901234567"));
+
+        assertThatThrownBy(() -> encoder.decrypt(encrypted)).isInstanceOf(CryptoException.class);
+    }
+}
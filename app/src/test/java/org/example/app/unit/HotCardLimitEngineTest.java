@@ -0,0 +1,254 @@
+package org.example.app.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.app.component.HotCardLimitEngine;
+import org.example.app.component.HotCardLimitProperties;
+import org.example.app.component.PeriodWindows;
+import org.example.app.model.Limit;
+import org.example.app.model.PeriodType;
+import org.example.app.model.SpendCounterId;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class HotCardLimitEngineTest {
+    private static final Long CARD_ID = 1L;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Mock
+    private LimitRepository limitRepository;
+
+    @Mock
+    private SpendCounterRepository spendCounterRepository;
+
+    private SimpleMeterRegistry registry;
+    private HotCardLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        properties = new HotCardLimitProperties();
+        properties.setEnabled(true);
+
+        given(limitRepository.findByCardId(anyLong())).willReturn(List.of(limit(PeriodType.DAILY, 100)));
+        given(spendCounterRepository.findAmount(anyLong(), any(), any())).willReturn(Optional.of(BigDecimal.valueOf(90)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Card state is read from the database once and then checked in memory")
+    void repeatedChecksAreServedFromMemory() {
+        HotCardLimitEngine engine = engine();
+
+        assertThat(engine.findExceeded(CARD_ID, BigDecimal.ONE)).isNull();
+        assertThat(engine.findExceeded(CARD_ID, BigDecimal.TEN)).isEqualTo(PeriodType.DAILY);
+        assertThat(engine.findExceeded(CARD_ID, new BigDecimal("9.99"))).isNull();
+
+        verify(limitRepository, times(1)).findByCardId(CARD_ID);
+        assertThat(registry.get("bank.limits.hot_cards.lookups").tag("result", "hit").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Counter changes are applied after commit and dropped on rollback")
+    void changesAreAppliedOnCommitOnly() {
+        HotCardLimitEngine engine = engine();
+        engine.findExceeded(CARD_ID, BigDecimal.ONE);
+
+        complete(engine, BigDecimal.valueOf(5), TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(engine.findExceeded(CARD_ID, BigDecimal.valueOf(6))).isNull();
+
+        complete(engine, BigDecimal.valueOf(5), TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(engine.findExceeded(CARD_ID, BigDecimal.valueOf(6))).isEqualTo(PeriodType.DAILY);
+        verify(limitRepository, times(1)).findByCardId(CARD_ID);
+    }
+
+    @Test
+    @DisplayName("State read while another transaction commits is not cached")
+    void loadDuringCommitIsNotCached() {
+        HotCardLimitEngine engine = engine();
+        TransactionSynchronizationManager.initSynchronization();
+        engine.counterChanged(new SpendCounterId(CARD_ID, PeriodType.DAILY, TODAY), BigDecimal.ONE);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::beforeCompletion);
+
+        engine.findExceeded(CARD_ID, BigDecimal.ONE);
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        engine.findExceeded(CARD_ID, BigDecimal.ONE);
+
+        verify(limitRepository, times(2)).findByCardId(CARD_ID);
+        assertThat(engine.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Check running while another transaction commits reads the database instead of the stale memory")
+    void checkDuringCommitReadsDatabase() throws Exception {
+        HotCardLimitEngine engine = engine();
+        assertThat(engine.findExceeded(CARD_ID, BigDecimal.ONE)).isNull();
+
+        CountDownLatch committedInDatabase = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(1);
+        Thread debit = new Thread(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            engine.counterChanged(new SpendCounterId(CARD_ID, PeriodType.DAILY, TODAY), BigDecimal.valueOf(5));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            synchronizations.forEach(TransactionSynchronization::beforeCompletion);
+            // Коммит в базе прошёл, afterCompletion ещё не вызван
+            given(spendCounterRepository.findAmount(anyLong(), any(), any())).willReturn(Optional.of(BigDecimal.valueOf(95)));
+            committedInDatabase.countDown();
+            try {
+                checked.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronizations.forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        });
+        debit.start();
+
+        assertThat(committedInDatabase.await(5, TimeUnit.SECONDS)).isTrue();
+        // В памяти 90 + 6 < 100, в базе уже 95 + 6
+        PeriodType exceeded = engine.findExceeded(CARD_ID, BigDecimal.valueOf(6));
+        checked.countDown();
+        debit.join(5_000);
+
+        assertThat(exceeded).isEqualTo(PeriodType.DAILY);
+        assertThat(engine.findExceeded(CARD_ID, BigDecimal.valueOf(6))).isEqualTo(PeriodType.DAILY);
+        verify(limitRepository, times(2)).findByCardId(CARD_ID);
+    }
+
+    @Test
+    @DisplayName("Least recently used card is evicted when the engine is full")
+    void leastRecentlyUsedCardIsEvicted() {
+        properties.setMaxCards(2);
+        properties.setSegments(1);
+        HotCardLimitEngine engine = engine();
+
+        engine.findExceeded(1L, BigDecimal.ONE);
+        engine.findExceeded(2L, BigDecimal.ONE);
+        engine.findExceeded(1L, BigDecimal.ONE);
+        engine.findExceeded(3L, BigDecimal.ONE);
+        engine.findExceeded(1L, BigDecimal.ONE);
+        engine.findExceeded(2L, BigDecimal.ONE);
+
+        verify(limitRepository, times(1)).findByCardId(1L);
+        verify(limitRepository, times(2)).findByCardId(2L);
+        assertThat(engine.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Hits and evictions match an LRU map for a random access sequence")
+    void behavesAsLruMap() {
+        int capacity = 64;
+        properties.setMaxCards(capacity);
+        properties.setSegments(1);
+        HotCardLimitEngine engine = engine();
+        Map<Long, Boolean> model = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        Random random = new Random(42);
+        long expectedMisses = 0;
+        for (int i = 0; i < 20_000; i++) {
+            long cardId = random.nextInt(200) * 1024L;
+            if (model.put(cardId, Boolean.TRUE) == null) {
+                expectedMisses++;
+            }
+            engine.findExceeded(cardId, BigDecimal.ONE);
+        }
+
+        assertThat(registry.get("bank.limits.hot_cards.lookups").tag("result", "miss").counter().count())
+                .isEqualTo(expectedMisses);
+        assertThat(engine.size()).isEqualTo(capacity);
+    }
+
+    @Test
+    @DisplayName("Memory is allocated up front and bounded per tracked card")
+    void memoryIsBoundedPerCard() {
+        properties.setMaxCards(10_000);
+        HotCardLimitEngine engine = engine();
+        long allocated = engine.bytes();
+
+        for (long cardId = 0; cardId < 20_000; cardId++) {
+            engine.findExceeded(cardId, BigDecimal.ONE);
+        }
+
+        assertThat(engine.bytes()).isEqualTo(allocated);
+        assertThat(engine.size()).isLessThanOrEqualTo(properties.getMaxCards());
+        assertThat(allocated / properties.getMaxCards()).isLessThan(200);
+        assertThat(registry.get("bank.limits.hot_cards.memory").gauge().value()).isEqualTo(allocated);
+    }
+
+    @Test
+    @DisplayName("Disabled engine allocates nothing")
+    void disabledEngineIsEmpty() {
+        properties.setEnabled(false);
+
+        HotCardLimitEngine engine = engine();
+
+        assertThat(engine.isEnabled()).isFalse();
+        assertThat(engine.bytes()).isZero();
+    }
+
+    private HotCardLimitEngine engine() {
+        return new HotCardLimitEngine(properties, limitRepository, spendCounterRepository,
+                new PeriodWindows(1000), registry);
+    }
+
+    private void complete(HotCardLimitEngine engine, BigDecimal amount, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        engine.counterChanged(new SpendCounterId(CARD_ID, PeriodType.DAILY, TODAY), amount);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::beforeCompletion);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static Limit limit(PeriodType periodType, long amount) {
+        Limit limit = new Limit();
+        limit.setPeriodType(periodType);
+        limit.setLimitAmount(BigDecimal.valueOf(amount));
+        limit.setPeriodStartDate(TODAY);
+        return limit;
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.app.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.ValidationException;
+import org.example.app.dto.transaction.TransactionCreateDTO;
+import org.example.app.dto.transaction.TransactionDTO;
+import org.example.app.exception.InsufficientFundsException;
+import org.example.app.model.IdempotencyRecord;
+import org.example.app.model.IdempotencyRecordId;
+import org.example.app.model.TransactionType;
+import org.example.app.repository.IdempotencyRecordRepository;
+import org.example.app.service.IdempotencyService;
+import org.example.app.service.IdempotencyService.IdempotentResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+    private static final Long USER_ID = 1L;
+    private static final String KEY = "key-1";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyService idempotencyService;
+    private TransactionCreateDTO request;
+    private TransactionDTO response;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, objectMapper);
+        request = new TransactionCreateDTO(BigDecimal.TEN, "payment", TransactionType.PAYMENT);
+        response = new TransactionDTO(5L, BigDecimal.TEN, "payment", LocalDateTime.now(), TransactionType.PAYMENT, 1L);
+    }
+
+    @Test
+    @DisplayName("Stored response is returned without running the operation")
+    void storedResponseIsReplayed() throws Exception {
+        IdempotencyRecord record = storedRecord(request);
+        record.setResponseBody(objectMapper.writeValueAsString(response));
+        given(idempotencyRecordRepository.findById(new IdempotencyRecordId(USER_ID, KEY)))
+                .willReturn(Optional.of(record));
+
+        IdempotentResult<TransactionDTO> result = execute(request);
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.body().getId()).isEqualTo(5L);
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Key reused for a different request is rejected")
+    void keyReusedForDifferentRequestIsRejected() {
+        given(idempotencyRecordRepository.findById(new IdempotencyRecordId(USER_ID, KEY)))
+                .willReturn(Optional.of(storedRecord(request)));
+        TransactionCreateDTO other = new TransactionCreateDTO(BigDecimal.ONE, "payment", TransactionType.PAYMENT);
+
+        assertThatThrownBy(() -> execute(other))
+                .isInstanceOf(ValidationException.class);
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Operation failing behind a concurrent request with the same key gets its stored response")
+    void failureAfterConcurrentSuccessIsReplayed() throws Exception {
+        IdempotencyRecord record = storedRecord(request);
+        record.setResponseBody(objectMapper.writeValueAsString(response));
+        // Первое чтение до операции ещё не видит ответ конкурентного запроса
+        given(idempotencyRecordRepository.findById(new IdempotencyRecordId(USER_ID, KEY)))
+                .willReturn(Optional.empty(), Optional.of(record));
+
+        IdempotentResult<TransactionDTO> result = idempotencyService.execute(USER_ID, KEY, "transactions:1",
+                request, TransactionDTO.class, recorder -> {
+                    throw new InsufficientFundsException("Insufficient funds");
+                });
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.body().getId()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("Operation failure without a stored response is rethrown")
+    void failureWithoutStoredResponseIsRethrown() {
+        given(idempotencyRecordRepository.findById(new IdempotencyRecordId(USER_ID, KEY)))
+                .willReturn(Optional.empty());
+
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, KEY, "transactions:1",
+                request, TransactionDTO.class, recorder -> {
+                    throw new InsufficientFundsException("Insufficient funds");
+                }))
+                .isInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    @DisplayName("Request without a key runs the operation")
+    void requestWithoutKeyRunsOperation() {
+        IdempotentResult<TransactionDTO> result = idempotencyService.execute(USER_ID, null, "transactions:1",
+                request, TransactionDTO.class, recorder -> {
+                    executions.incrementAndGet();
+                    return response;
+                });
+
+        assertThat(result.replayed()).isFalse();
+        assertThat(executions).hasValue(1);
+    }
+
+    private IdempotentResult<TransactionDTO> execute(TransactionCreateDTO createDTO) {
+        return idempotencyService.execute(USER_ID, KEY, "transactions:1", createDTO, TransactionDTO.class,
+                recorder -> {
+                    executions.incrementAndGet();
+                    return response;
+                });
+    }
+
+    private IdempotencyRecord storedRecord(TransactionCreateDTO createDTO) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUserId(USER_ID);
+        record.setIdempotencyKey(KEY);
+        record.setRequestHash(idempotencyService.requestHash("transactions:1", createDTO));
+        record.setExpiresAt(LocalDateTime.now().plusHours(1));
+        return record;
+    }
+}
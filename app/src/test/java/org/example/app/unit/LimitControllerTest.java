@@ -8,6 +8,7 @@ import org.example.app.dto.limit.LimitUpdateDTO;
 import org.example.app.exception.ResourceNotFoundException;
 import org.example.app.handler.GlobalExceptionHandler;
 import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
 import org.example.app.service.LimitService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -60,9 +61,12 @@ public class LimitControllerTest {
                 .setControllerAdvice(GlobalExceptionHandler.class)
                 .build();
 
-        limitDTO = new LimitDTO(1L, PeriodType.DAILY, BigDecimal.valueOf(1000.00), LocalDate.now(), true, 1L);
-        createDTO = new LimitCreateDTO(PeriodType.DAILY, BigDecimal.valueOf(1000.00), LocalDate.now());
-        updateDTO = new LimitUpdateDTO(PeriodType.MONTHLY, BigDecimal.valueOf(5000.00),LocalDate.now().plusDays(5), true);
+        limitDTO = new LimitDTO(1L, PeriodType.DAILY, BigDecimal.valueOf(1000.00), LocalDate.now(),
+                WindowAlignment.ANCHORED, true, 1L);
+        createDTO = new LimitCreateDTO(PeriodType.DAILY, BigDecimal.valueOf(1000.00), LocalDate.now(),
+                WindowAlignment.ANCHORED);
+        updateDTO = new LimitUpdateDTO(PeriodType.MONTHLY, BigDecimal.valueOf(5000.00),LocalDate.now().plusDays(5),
+                WindowAlignment.CALENDAR, true);
     }
 
     @Test
@@ -136,7 +140,7 @@ public class LimitControllerTest {
     @Test
     @DisplayName("POST /api/cards/{cardId}/limits create limit with invalid data")
     void createLimitWithInvalidDataTest() throws Exception {
-        LimitCreateDTO limitCreateDTO = new LimitCreateDTO(PeriodType.DAILY, null, LocalDate.now().minusDays(5));
+        LimitCreateDTO limitCreateDTO = new LimitCreateDTO(PeriodType.DAILY, null, LocalDate.now().minusDays(5), null);
         given(limitService.save(any(LimitCreateDTO.class), anyLong()))
                 .willThrow(new IllegalArgumentException("Invalid data"));
 
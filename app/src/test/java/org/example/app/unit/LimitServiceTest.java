@@ -0,0 +1,200 @@
+package org.example.app.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.app.component.BankMetrics;
+import org.example.app.component.HotCardLimitEngine;
+import org.example.app.component.PeriodWindows;
+import org.example.app.exception.LimitExceededException;
+import org.example.app.mapper.LimitMapper;
+import org.example.app.model.Limit;
+import org.example.app.model.PeriodType;
+import org.example.app.model.SpendCounterId;
+import org.example.app.model.TransactionType;
+import org.example.app.model.WindowAlignment;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.service.LimitService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class LimitServiceTest {
+    private static final Long CARD_ID = 1L;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private LimitRepository limitRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private SpendCounterRepository spendCounterRepository;
+
+    @Mock
+    private HotCardLimitEngine hotCardLimits;
+
+    @Mock
+    private LimitMapper limitMapper;
+
+    private SimpleMeterRegistry registry;
+    private Limit daily;
+    private LimitService limitService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        limitService = new LimitService(transactionRepository, limitRepository, cardRepository,
+                spendCounterRepository, hotCardLimits, new PeriodWindows(1000), limitMapper,
+                new BankMetrics(registry));
+
+        daily = limit(PeriodType.DAILY, 100, LocalDate.now());
+        given(limitRepository.findByCardId(CARD_ID)).willReturn(List.of(daily));
+        given(spendCounterRepository.findAmount(CARD_ID, PeriodType.DAILY, daily.getPeriodStartDate()))
+                .willReturn(Optional.of(BigDecimal.valueOf(90)));
+    }
+
+    @Test
+    @DisplayName("Limit checks are timed per limit type")
+    void checkLimitIsTimedPerPeriod() {
+        limitService.checkLimit(CARD_ID, BigDecimal.ONE);
+
+        assertThat(registry.get("bank.limits.check").tag("period", "DAILY").timer().count()).isEqualTo(1);
+        assertThat(registry.get("bank.limits.check").tag("period", "MONTHLY").timer().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Rejected operation increments the limit rejection counter")
+    void rejectionIsCounted() {
+        assertThatThrownBy(() -> limitService.checkLimit(CARD_ID, BigDecimal.TEN))
+                .isInstanceOf(LimitExceededException.class);
+
+        assertThat(registry.get("bank.limits.rejections").tag("period", "DAILY").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Per-transaction limit rejects a single operation regardless of spending")
+    void perTransactionLimit() {
+        Limit perTransaction = limit(PeriodType.PER_TRANSACTION, 5, LocalDate.now().minusDays(1));
+        given(limitRepository.findByCardId(CARD_ID)).willReturn(List.of(daily, perTransaction));
+
+        assertThatThrownBy(() -> limitService.checkLimit(CARD_ID, BigDecimal.valueOf(5)))
+                .isInstanceOf(LimitExceededException.class);
+
+        assertThat(registry.get("bank.limits.rejections").tag("period", "PER_TRANSACTION").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Spending is counted in the window of the operation date and checked in the current one")
+    void weeklyWindowRollsOver() {
+        LocalDate today = LocalDate.now();
+        Limit weekly = limit(PeriodType.WEEKLY, 100, today.minusDays(10));
+        given(limitRepository.findByCardId(CARD_ID)).willReturn(List.of(daily, weekly));
+
+        limitService.recordSpending(CARD_ID, TransactionType.PAYMENT, today.minusDays(4), BigDecimal.TEN);
+        limitService.checkLimit(CARD_ID, BigDecimal.ONE);
+
+        verify(spendCounterRepository).increment(CARD_ID, "WEEKLY", today.minusDays(10), BigDecimal.TEN);
+        verify(spendCounterRepository).findAmount(CARD_ID, PeriodType.WEEKLY, today.minusDays(3));
+    }
+
+    @Test
+    @DisplayName("Deposits do not change spend counters")
+    void depositIsNotCounted() {
+        limitService.recordSpending(CARD_ID, TransactionType.DEPOSIT, LocalDate.now(), BigDecimal.TEN);
+
+        verifyNoInteractions(spendCounterRepository, hotCardLimits);
+    }
+
+    @Test
+    @DisplayName("Negative delta of an updated or deleted transaction is applied to the counter of its window")
+    void negativeDeltaIsCounted() {
+        LocalDate today = LocalDate.now();
+
+        limitService.recordSpending(CARD_ID, TransactionType.PAYMENT, today, BigDecimal.valueOf(-40));
+        // Дата раньше начала лимита не попадает ни в одно окно
+        limitService.recordSpending(CARD_ID, TransactionType.PAYMENT, today.minusDays(1), BigDecimal.valueOf(-5));
+
+        verify(spendCounterRepository).increment(CARD_ID, "DAILY", today, BigDecimal.valueOf(-40));
+        verify(hotCardLimits).counterChanged(new SpendCounterId(CARD_ID, PeriodType.DAILY, today),
+                BigDecimal.valueOf(-40));
+        verify(spendCounterRepository).increment(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Rebuild recomputes counters of current windows from the transactions table")
+    void rebuildFromLedger() {
+        LocalDate today = LocalDate.now();
+        Limit weekly = limit(PeriodType.WEEKLY, 500, today.minusDays(10));
+        Limit inactive = limit(PeriodType.MONTHLY, 500, today);
+        inactive.setActive(false);
+        given(limitRepository.findByCardId(CARD_ID)).willReturn(List.of(daily, weekly, inactive));
+        given(transactionRepository.getTransactionsSum(CARD_ID, today.atStartOfDay(), today.plusDays(1).atStartOfDay()))
+                .willReturn(BigDecimal.valueOf(30));
+        given(transactionRepository.getTransactionsSum(CARD_ID, today.minusDays(3).atStartOfDay(),
+                today.plusDays(4).atStartOfDay()))
+                .willReturn(BigDecimal.valueOf(55));
+
+        limitService.rebuildSpendCounters(CARD_ID);
+
+        InOrder order = inOrder(spendCounterRepository);
+        order.verify(spendCounterRepository).deleteAllByCardId(CARD_ID);
+        order.verify(spendCounterRepository).overwrite(CARD_ID, "DAILY", today, BigDecimal.valueOf(30));
+        verify(spendCounterRepository).overwrite(CARD_ID, "WEEKLY", today.minusDays(3), BigDecimal.valueOf(55));
+        verify(spendCounterRepository, never()).overwrite(anyLong(), eq("MONTHLY"), any(), any());
+        verify(hotCardLimits).invalidate(CARD_ID);
+    }
+
+    @Test
+    @DisplayName("Limits sharing a counter are rebuilt over the longest of their windows")
+    void sharedCounterUsesLongestWindow() {
+        LocalDate today = LocalDate.now();
+        Limit anchored = limit(PeriodType.WEEKLY, 500, today);
+        Limit calendar = limit(PeriodType.WEEKLY, 300, today);
+        calendar.setWindowAlignment(WindowAlignment.CALENDAR);
+        given(limitRepository.findByCardId(CARD_ID)).willReturn(List.of(anchored, calendar));
+        given(transactionRepository.getTransactionsSum(any(), any(), any())).willReturn(BigDecimal.ONE);
+
+        limitService.rebuildSpendCounters(CARD_ID);
+
+        verify(transactionRepository).getTransactionsSum(CARD_ID, today.atStartOfDay(), today.plusDays(7).atStartOfDay());
+        verify(spendCounterRepository).overwrite(CARD_ID, "WEEKLY", today, BigDecimal.ONE);
+    }
+
+    private static Limit limit(PeriodType periodType, long amount, LocalDate periodStartDate) {
+        Limit limit = new Limit();
+        limit.setPeriodType(periodType);
+        limit.setLimitAmount(BigDecimal.valueOf(amount));
+        limit.setPeriodStartDate(periodStartDate);
+        return limit;
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.app.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.app.component.OutboxProperties;
+import org.example.app.dto.transaction.TransactionEventDTO;
+import org.example.app.model.Card;
+import org.example.app.model.OutboxEvent;
+import org.example.app.model.OutboxOffset;
+import org.example.app.model.Transaction;
+import org.example.app.model.TransactionType;
+import org.example.app.repository.OutboxEventRepository;
+import org.example.app.repository.OutboxOffsetRepository;
+import org.example.app.service.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OutboxServiceTest {
+    private static final String CONSUMER = "relay:test";
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxOffsetRepository outboxOffsetRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private OutboxService outboxService;
+    private OutboxOffset offset;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new OutboxService(outboxEventRepository, outboxOffsetRepository, new OutboxProperties(),
+                transactionTemplate, objectMapper);
+
+        willAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .given(transactionTemplate).execute(any());
+
+        offset = new OutboxOffset();
+        offset.setConsumer(CONSUMER);
+        offset.setPartitionNo(3);
+        offset.setLastTxid(7);
+        offset.setLastEventId(100);
+        given(outboxOffsetRepository.findForUpdate(CONSUMER, 3)).willReturn(Optional.of(offset));
+    }
+
+    @Test
+    @DisplayName("Events of a card go to one partition and carry the created transaction")
+    void createdEventsArePartitionedByCard() {
+        Card card = new Card();
+        card.setId(35L);
+        Transaction transaction = new Transaction();
+        transaction.setId(7L);
+        transaction.setCard(card);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setType(TransactionType.PAYMENT);
+        transaction.setDescription("coffee");
+        transaction.setTransactionDate(LocalDateTime.now());
+
+        outboxService.transactionsCreated(List.of(transaction));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OutboxEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxEventRepository).saveAll(events.capture());
+        OutboxEvent event = events.getValue().get(0);
+        assertThat(event.getPartitionNo()).isEqualTo(35 % 16);
+        assertThat(event.getEventType()).isEqualTo(OutboxService.TRANSACTION_CREATED);
+
+        TransactionEventDTO payload = outboxService.readTransactionEvent(event);
+        assertThat(payload.getPrevious()).isNull();
+        assertThat(payload.getCurrent().getId()).isEqualTo(7L);
+        assertThat(payload.getCurrent().getCardId()).isEqualTo(35L);
+    }
+
+    @Test
+    @DisplayName("Offset moves to the last event of a handled batch")
+    void offsetMovesAfterBatch() {
+        given(outboxEventRepository.findBatch(3, 7L, 100L, 10))
+                .willReturn(List.of(event(8L, 150L), event(9L, 101L)));
+
+        int count = outboxService.consume(CONSUMER, 3, 10, events -> {
+        });
+
+        // Событие с меньшим id из более поздней транзакции идёт последним и задаёт позицию
+        assertThat(count).isEqualTo(2);
+        assertThat(offset.getLastTxid()).isEqualTo(9L);
+        assertThat(offset.getLastEventId()).isEqualTo(101L);
+    }
+
+    @Test
+    @DisplayName("Offset stays in place when the handler fails")
+    void offsetStaysOnFailure() {
+        given(outboxEventRepository.findBatch(anyInt(), anyLong(), anyLong(), anyInt()))
+                .willReturn(List.of(event(8L, 101L)));
+
+        assertThatThrownBy(() -> outboxService.consume(CONSUMER, 3, 10, events -> {
+            throw new IllegalStateException("sink is down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(offset.getLastTxid()).isEqualTo(7L);
+        assertThat(offset.getLastEventId()).isEqualTo(100L);
+    }
+
+    private static OutboxEvent event(Long txid, Long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTxid(txid);
+        event.setId(id);
+        event.setPartitionNo(3);
+        return event;
+    }
+}
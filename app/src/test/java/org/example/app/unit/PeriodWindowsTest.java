@@ -0,0 +1,148 @@
+package org.example.app.unit;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Label;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import org.example.app.component.PeriodWindow;
+import org.example.app.component.PeriodWindows;
+import org.example.app.model.Limit;
+import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PeriodWindowsTest {
+    private static final LocalDate MIN = LocalDate.of(2020, 1, 1);
+    private static final LocalDate MAX = LocalDate.of(2030, 12, 31);
+
+    @Property
+    @Label("Window contains the date and does not start before the limit")
+    void windowContainsDate(@ForAll("accumulating") PeriodType type, @ForAll WindowAlignment alignment,
+                            @ForAll("dates") LocalDate anchor, @ForAll("days") int offset) {
+        LocalDate date = anchor.plusDays(offset);
+
+        PeriodWindow window = PeriodWindows.windowOf(type, alignment, anchor, date);
+
+        assertThat(window.contains(date)).isTrue();
+        assertThat(window.start()).isAfterOrEqualTo(anchor);
+        assertThat(window.contains(window.end())).isFalse();
+    }
+
+    @Property
+    @Label("The next window starts exactly where the previous one ends")
+    void windowsAreContiguous(@ForAll("accumulating") PeriodType type, @ForAll WindowAlignment alignment,
+                              @ForAll("dates") LocalDate anchor, @ForAll("days") int offset) {
+        PeriodWindow window = PeriodWindows.windowOf(type, alignment, anchor, anchor.plusDays(offset));
+
+        PeriodWindow next = PeriodWindows.windowOf(type, alignment, anchor, window.end());
+        PeriodWindow last = PeriodWindows.windowOf(type, alignment, anchor, window.end().minusDays(1));
+
+        assertThat(next.start()).isEqualTo(window.end());
+        assertThat(last).isEqualTo(window);
+    }
+
+    @Property
+    @Label("Window length matches the period, only the first calendar window may be shorter")
+    void windowLength(@ForAll("accumulating") PeriodType type, @ForAll WindowAlignment alignment,
+                      @ForAll("dates") LocalDate anchor, @ForAll("days") int offset) {
+        PeriodWindow window = PeriodWindows.windowOf(type, alignment, anchor, anchor.plusDays(offset));
+        long days = ChronoUnit.DAYS.between(window.start(), window.end());
+        boolean clamped = alignment == WindowAlignment.CALENDAR && window.start().equals(anchor);
+
+        switch (type) {
+            case DAILY -> assertThat(days).isEqualTo(1);
+            case WEEKLY -> assertThat(days).isBetween(clamped ? 1L : 7L, 7L);
+            case MONTHLY -> assertThat(days).isBetween(clamped ? 1L : 28L, 31L);
+            default -> throw new IllegalStateException();
+        }
+    }
+
+    @Property
+    @Label("Calendar windows start on Monday or the first day of the month")
+    void calendarBoundaries(@ForAll("dates") LocalDate anchor, @ForAll("days") int offset) {
+        LocalDate date = anchor.plusDays(offset);
+
+        PeriodWindow week = PeriodWindows.windowOf(PeriodType.WEEKLY, WindowAlignment.CALENDAR, anchor, date);
+        PeriodWindow month = PeriodWindows.windowOf(PeriodType.MONTHLY, WindowAlignment.CALENDAR, anchor, date);
+
+        assertThat(week.end().getDayOfWeek()).isEqualTo(DayOfWeek.MONDAY);
+        assertThat(week.start().getDayOfWeek() == DayOfWeek.MONDAY || week.start().equals(anchor)).isTrue();
+        assertThat(month.end().getDayOfMonth()).isEqualTo(1);
+        assertThat(month.start().getDayOfMonth() == 1 || month.start().equals(anchor)).isTrue();
+    }
+
+    @Property
+    @Label("Anchored monthly windows start on the day of the limit start or the last day of a shorter month")
+    void anchoredMonthlyKeepsDay(@ForAll("dates") LocalDate anchor, @ForAll("days") int offset) {
+        PeriodWindow window = PeriodWindows.windowOf(PeriodType.MONTHLY, WindowAlignment.ANCHORED,
+                anchor, anchor.plusDays(offset));
+
+        int day = window.start().getDayOfMonth();
+        assertThat(day == anchor.getDayOfMonth() || day == window.start().lengthOfMonth()).isTrue();
+    }
+
+    @Property
+    @Label("There is no window before the limit start and for a per-transaction limit")
+    void noWindow(@ForAll WindowAlignment alignment, @ForAll("dates") LocalDate anchor,
+                  @ForAll("days") int offset) {
+        assertThat(PeriodWindows.windowOf(PeriodType.PER_TRANSACTION, alignment, anchor, anchor.plusDays(offset)))
+                .isNull();
+        assertThat(PeriodWindows.windowOf(PeriodType.MONTHLY, alignment, anchor, anchor.minusDays(offset + 1)))
+                .isNull();
+    }
+
+    @Example
+    @Label("Monthly window from January 31 rolls over on the last day of February")
+    void monthlyFromEndOfMonth() {
+        LocalDate anchor = LocalDate.of(2024, 1, 31);
+
+        assertThat(PeriodWindows.windowOf(PeriodType.MONTHLY, WindowAlignment.ANCHORED, anchor,
+                LocalDate.of(2024, 2, 28)))
+                .isEqualTo(new PeriodWindow(anchor, LocalDate.of(2024, 2, 29)));
+        assertThat(PeriodWindows.windowOf(PeriodType.MONTHLY, WindowAlignment.ANCHORED, anchor,
+                LocalDate.of(2024, 3, 30)))
+                .isEqualTo(new PeriodWindow(LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 31)));
+    }
+
+    @Example
+    @Label("Cached window is recomputed after the date leaves it or the limit changes")
+    void cachedWindow() {
+        PeriodWindows windows = new PeriodWindows(10);
+        Limit limit = new Limit();
+        limit.setId(1L);
+        limit.setPeriodType(PeriodType.WEEKLY);
+        limit.setPeriodStartDate(LocalDate.of(2024, 1, 3));
+
+        PeriodWindow first = windows.current(limit, LocalDate.of(2024, 1, 5));
+        assertThat(windows.current(limit, LocalDate.of(2024, 1, 9))).isSameAs(first);
+        assertThat(windows.current(limit, LocalDate.of(2024, 1, 10)).start()).isEqualTo(LocalDate.of(2024, 1, 10));
+
+        limit.setWindowAlignment(WindowAlignment.CALENDAR);
+        assertThat(windows.current(limit, LocalDate.of(2024, 1, 10)).start()).isEqualTo(LocalDate.of(2024, 1, 8));
+    }
+
+    @Provide
+    Arbitrary<PeriodType> accumulating() {
+        return Arbitraries.of(PeriodType.DAILY, PeriodType.WEEKLY, PeriodType.MONTHLY);
+    }
+
+    @Provide
+    Arbitrary<LocalDate> dates() {
+        return Arbitraries.longs().between(MIN.toEpochDay(), MAX.toEpochDay()).map(LocalDate::ofEpochDay);
+    }
+
+    @Provide
+    Arbitrary<Integer> days() {
+        // Смещения от даты начала в пределах нескольких лет, чаще у границ окон
+        return Arbitraries.oneOf(Arbitraries.integers().between(0, 3 * 366),
+                Arbitraries.of(0, 1, 6, 7, 27, 28, 29, 30, 31, 59, 365, 366));
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.app.unit;
+
+import org.example.app.config.ReplicaRoutingDataSource;
+import org.example.app.config.ReplicaRoutingDataSource.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ReplicaRoutingDataSourceTest {
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private final AtomicBoolean replicaUsable = new AtomicBoolean(true);
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        given(primary.getConnection()).willReturn(primaryConnection);
+        given(replica.getConnection()).willReturn(replicaConnection);
+
+        routing = new ReplicaRoutingDataSource(replicaUsable::get);
+        routing.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Read-only transaction is routed to the replica")
+    void readOnlyGoesToReplica() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    @DisplayName("Read-write work stays on the primary")
+    void readWriteGoesToPrimary() throws Exception {
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    @DisplayName("Read-only transaction falls back to the primary while the replica lags")
+    void laggingReplicaIsBypassed() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        replicaUsable.set(false);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.app.unit;
+
+import org.example.app.component.SpendCounterReconciler;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.example.app.service.LimitService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class SpendCounterReconcilerTest {
+    @Mock
+    private LimitService limitService;
+
+    @Mock
+    private LimitRepository limitRepository;
+
+    @Mock
+    private SpendCounterRepository spendCounterRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SpendCounterReconciler reconciler;
+
+    @Test
+    @DisplayName("Cards with active limits and cards with leftover counters are rebuilt once each in id order")
+    void reconcileRebuildsEachCardOnce() {
+        given(limitRepository.findCardIdsWithActiveLimits()).willReturn(List.of(5L, 2L));
+        // Счётчики карты 7 остались от удалённого лимита и должны быть удалены пересчётом
+        given(spendCounterRepository.findAllCardIds()).willReturn(List.of(2L, 7L));
+
+        reconciler.reconcile();
+
+        InOrder order = inOrder(limitService);
+        order.verify(limitService).rebuildSpendCounters(2L);
+        order.verify(limitService).rebuildSpendCounters(5L);
+        order.verify(limitService).rebuildSpendCounters(7L);
+        verifyNoMoreInteractions(limitService);
+    }
+
+    @Test
+    @DisplayName("Rebuild requested by a migration runs on startup and is cleared afterwards")
+    void requestedRebuildRunsOnStartup() {
+        given(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(SpendCounterReconciler.REBUILD_TASK)))
+                .willReturn(1);
+        given(limitRepository.findCardIdsWithActiveLimits()).willReturn(List.of(4L));
+
+        reconciler.afterSingletonsInstantiated();
+
+        InOrder order = inOrder(limitService, jdbcTemplate);
+        order.verify(limitService).rebuildSpendCounters(4L);
+        order.verify(jdbcTemplate).update("DELETE FROM startup_tasks WHERE task = ?",
+                SpendCounterReconciler.REBUILD_TASK);
+    }
+
+    @Test
+    @DisplayName("Startup without a requested rebuild leaves the counters alone")
+    void startupWithoutRequest() {
+        given(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(SpendCounterReconciler.REBUILD_TASK)))
+                .willReturn(0);
+
+        reconciler.afterSingletonsInstantiated();
+
+        verifyNoInteractions(limitService);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
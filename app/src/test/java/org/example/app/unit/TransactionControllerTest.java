@@ -1,7 +1,9 @@
 package org.example.app.unit;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.component.UserUtils;
 import org.example.app.controller.TransactionController;
+import org.example.app.dto.CursorPageDTO;
 import org.example.app.dto.transaction.TransactionCreateDTO;
 import org.example.app.dto.transaction.TransactionDTO;
 import org.example.app.dto.transaction.TransactionParamDTO;
@@ -9,6 +11,11 @@ import org.example.app.dto.transaction.TransactionUpdateDTO;
 import org.example.app.exception.ResourceNotFoundException;
 import org.example.app.handler.GlobalExceptionHandler;
 import org.example.app.model.TransactionType;
+import org.example.app.model.User;
+import org.example.app.service.IdempotencyService;
+import org.example.app.service.IdempotencyService.IdempotentResult;
+import org.example.app.service.IdempotencyService.Recorder;
+import org.example.app.service.TransactionImportService.Format;
 import org.example.app.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,21 +27,37 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
@@ -55,12 +78,26 @@ public class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private UserUtils userUtils;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionController(transactionService))
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionController(transactionService, userUtils, idempotencyService))
                 .setControllerAdvice(GlobalExceptionHandler.class)
                 .build();
 
+        User user = new User();
+        user.setId(1L);
+        given(userUtils.getCurrentUser()).willReturn(user);
+        // Без сохранённого ответа запрос выполняется как обычно
+        given(idempotencyService.execute(anyLong(), any(), anyString(), any(), any(), any()))
+                .willAnswer(invocation -> new IdempotentResult<>(
+                        invocation.<Function<Recorder<Object>, Object>>getArgument(5).apply(Recorder.none()), false));
+
         transactionDTO = new TransactionDTO(1L, BigDecimal.valueOf(1000.00), "payment", LocalDateTime.now(), TransactionType.PAYMENT, 1L);
         createDTO = new TransactionCreateDTO(BigDecimal.valueOf(1000.00), "payment", TransactionType.PAYMENT);
         updateDTO = new TransactionUpdateDTO(BigDecimal.valueOf(2000.00), "transfer", LocalDateTime.now(), TransactionType.TRANSFER);
@@ -70,13 +107,15 @@ public class TransactionControllerTest {
     @DisplayName("GET /api/cards/{cardId}/transactions show all transactions")
     void getAllTransactionsTest() throws Exception {
         List<TransactionDTO> transactionDTOS = List.of(transactionDTO);
-        TransactionParamDTO params = new TransactionParamDTO();
 
-        given(transactionService.findAll(params)).willReturn(transactionDTOS);
+        given(transactionService.findAll(any(TransactionParamDTO.class), isNull(), isNull(), eq(false)))
+                .willReturn(new CursorPageDTO<>(transactionDTOS, "next", null));
 
         mockMvc.perform(get(BASE_URL, transactionDTO.getCardId())
                         .contentType(JSON_CONTENT_TYPE))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
+                .andExpect(header().doesNotExist("X-Total-Count"));
     }
 
     @Test
@@ -93,7 +132,7 @@ public class TransactionControllerTest {
     @Test
     @DisplayName("POST /api/cards/{cardId}/transactions create transaction")
     void createTransactionTest() throws Exception {
-        given(transactionService.save(any(TransactionCreateDTO.class), anyLong()))
+        given(transactionService.save(any(TransactionCreateDTO.class), anyLong(), any()))
                 .willReturn(transactionDTO);
 
         mockMvc.perform(post(BASE_URL, transactionDTO.getCardId())
@@ -103,6 +142,23 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$.description").value(createDTO.getDescription()));
     }
 
+    @Test
+    @DisplayName("POST /api/cards/{cardId}/transactions repeat with Idempotency-Key returns stored result")
+    void createTransactionReplayTest() throws Exception {
+        willReturn(new IdempotentResult<>(transactionDTO, true)).given(idempotencyService)
+                .execute(eq(1L), eq("key-1"), anyString(), any(), eq(TransactionDTO.class), any());
+
+        mockMvc.perform(post(BASE_URL, transactionDTO.getCardId())
+                        .header(IdempotencyService.KEY_HEADER, "key-1")
+                        .contentType(JSON_CONTENT_TYPE)
+                        .content(objectMapper.writeValueAsString(createDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id").value(transactionDTO.getId()));
+
+        verify(transactionService, never()).save(any(TransactionCreateDTO.class), anyLong(), any());
+    }
+
     @Test
     @DisplayName("POST /api/cards/{cardId}/transactions/{id} update transaction")
     void updateTransactionTest() throws Exception {
@@ -142,7 +198,7 @@ public class TransactionControllerTest {
     @Test
     @DisplayName("POST /api/cards/{cardId}/transactions create transaction with not check limit")
     void createTransactionWithNotCheckLimitTest() throws Exception {
-        given(transactionService.save(any(TransactionCreateDTO.class), anyLong()))
+        given(transactionService.save(any(TransactionCreateDTO.class), anyLong(), any()))
                 .willThrow(new RuntimeException("Exceeding the limit"));
 
         mockMvc.perform(post(BASE_URL + "/{id}", transactionDTO.getCardId(), transactionDTO.getId())
@@ -156,7 +212,7 @@ public class TransactionControllerTest {
         TransactionCreateDTO transactionCreateDTO = new TransactionCreateDTO(
                 null, "payment", TransactionType.PAYMENT);
 
-        given(transactionService.save(any(TransactionCreateDTO.class), anyLong()))
+        given(transactionService.save(any(TransactionCreateDTO.class), anyLong(), any()))
                 .willThrow(new IllegalArgumentException("Invalid data"));
 
         mockMvc.perform(post(BASE_URL, transactionDTO.getCardId())
@@ -190,4 +246,55 @@ public class TransactionControllerTest {
                         .contentType(JSON_CONTENT_TYPE))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @DisplayName("GET /api/cards/{cardId}/transactions/statement stream statement")
+    void exportStatementTest() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(4);
+            output.write("id,cardId,amount,description,type,transactionDate\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(transactionService).exportStatement(eq(1L), any(LocalDate.class), any(LocalDate.class),
+                eq(Format.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get(BASE_URL + "/statement", transactionDTO.getCardId())
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"statement-1-2024-01-01-2024-01-31.csv\""))
+                .andExpect(content().string("id,cardId,amount,description,type,transactionDate\n"));
+    }
+
+    @Test
+    @DisplayName("GET /api/cards/{cardId}/transactions/statement card not found")
+    void exportStatementCardNotFoundTest() throws Exception {
+        doThrow(new ResourceNotFoundException("Card not found"))
+                .when(transactionService).checkCardExists(anyLong());
+
+        mockMvc.perform(get(BASE_URL + "/statement", transactionDTO.getCardId())
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-01-31"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/cards/{cardId}/transactions/statement start after end is rejected before streaming")
+    void exportStatementInvalidPeriodTest() throws Exception {
+        doThrow(new IllegalArgumentException("Start date must not be after end date"))
+                .when(transactionService).checkStatementPeriod(any(LocalDate.class), any(LocalDate.class));
+
+        mockMvc.perform(get(BASE_URL + "/statement", transactionDTO.getCardId())
+                        .param("from", "2024-02-01")
+                        .param("to", "2024-01-01"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("Content-Disposition"));
+
+        verify(transactionService, never()).exportStatement(anyLong(), any(), any(), any(), any());
+    }
 }
@@ -0,0 +1,91 @@
+package org.example.app.unit;
+
+import org.example.app.controller.TransactionImportController;
+import org.example.app.dto.transaction.TransactionImportReportDTO;
+import org.example.app.dto.transaction.TransactionImportResultDTO;
+import org.example.app.handler.GlobalExceptionHandler;
+import org.example.app.service.TransactionImportService;
+import org.example.app.service.TransactionImportService.Format;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TransactionImportController.class)
+@ExtendWith(MockitoExtension.class)
+public class TransactionImportControllerTest {
+    private final String BASE_URL = "/api/transactions/import";
+    private TransactionImportReportDTO report;
+
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TransactionImportService transactionImportService;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionImportController(transactionImportService))
+                .setControllerAdvice(GlobalExceptionHandler.class)
+                .build();
+
+        report = new TransactionImportReportDTO(2, 1, 1, List.of(
+                new TransactionImportResultDTO(1, 1L, TransactionImportResultDTO.Status.ACCEPTED, 10L, null),
+                new TransactionImportResultDTO(2, 1L, TransactionImportResultDTO.Status.REJECTED, null,
+                        "Exceeding the limit")));
+    }
+
+    @Test
+    @DisplayName("POST /api/transactions/import import NDJSON file")
+    void importNdjsonTest() throws Exception {
+        given(transactionImportService.importTransactions(any(InputStream.class), eq(Format.NDJSON), isNull()))
+                .willReturn(report);
+
+        mockMvc.perform(post(BASE_URL)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"cardId\":1,\"amount\":10,\"description\":\"a\",\"type\":\"PAYMENT\"}\n"
+                                + "{\"cardId\":1,\"amount\":99999,\"description\":\"b\",\"type\":\"PAYMENT\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rows[1].error").value("Exceeding the limit"));
+    }
+
+    @Test
+    @DisplayName("POST /api/transactions/import import CSV file with chunk size")
+    void importCsvTest() throws Exception {
+        given(transactionImportService.importTransactions(any(InputStream.class), eq(Format.CSV), eq(100)))
+                .willReturn(report);
+
+        mockMvc.perform(post(BASE_URL)
+                        .param("chunkSize", "100")
+                        .contentType("text/csv")
+                        .content("cardId,amount,description,type\n1,10,a,PAYMENT\n1,99999,b,PAYMENT\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2));
+    }
+
+    @Test
+    @DisplayName("POST /api/transactions/import reject unsupported content type")
+    void importUnsupportedContentTypeTest() throws Exception {
+        mockMvc.perform(post(BASE_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.app.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.model.TransactionType;
+import org.example.app.service.TransactionImportReader;
+import org.example.app.service.TransactionImportReader.ParsedRow;
+import org.example.app.service.TransactionImportService.Format;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransactionImportReaderTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    @DisplayName("CSV columns are matched by header name, quoted values keep commas and escaped quotes")
+    void csvQuoting() throws IOException {
+        List<ParsedRow> rows = read(Format.CSV, """
+                type,amount,cardId,description,transactionDate
+                payment,10.50,1,"Coffee, cake and ""tips""\",2024-03-01T10:15:00
+                WITHDRAWAL, 20 ,2,"",
+                """);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).getError()).isNull();
+        assertThat(rows.get(0).getRow()).isEqualTo(1);
+        assertThat(rows.get(0).getDto().getCardId()).isEqualTo(1L);
+        assertThat(rows.get(0).getDto().getAmount()).isEqualByComparingTo("10.50");
+        assertThat(rows.get(0).getDto().getType()).isEqualTo(TransactionType.PAYMENT);
+        assertThat(rows.get(0).getDto().getDescription()).isEqualTo("Coffee, cake and \"tips\"");
+        assertThat(rows.get(0).getDto().getTransactionDate()).isEqualTo(LocalDateTime.of(2024, 3, 1, 10, 15));
+
+        // Пустые значения и отсутствующие колонки читаются как null, пробелы обрезаются
+        assertThat(rows.get(1).getDto().getAmount()).isEqualByComparingTo("20");
+        assertThat(rows.get(1).getDto().getDescription()).isNull();
+        assertThat(rows.get(1).getDto().getTransactionDate()).isNull();
+    }
+
+    @Test
+    @DisplayName("Malformed CSV rows are reported with their number and reading continues")
+    void csvMalformedRows() throws IOException {
+        List<ParsedRow> rows = read(Format.CSV, """
+                cardId,amount,description,type
+                1,ten,bad amount,PAYMENT
+
+                2,5,bad type,REFUND
+                3,5,ok,DEPOSIT
+                """);
+
+        assertThat(rows).extracting(ParsedRow::getRow).containsExactly(1L, 2L, 3L);
+        assertThat(rows.get(0).getError()).startsWith("Malformed row: ");
+        assertThat(rows.get(0).getDto()).isNull();
+        assertThat(rows.get(1).getError()).contains("REFUND");
+        assertThat(rows.get(2).getError()).isNull();
+        assertThat(rows.get(2).getDto().getType()).isEqualTo(TransactionType.DEPOSIT);
+    }
+
+    @Test
+    @DisplayName("NDJSON rows are parsed one per line, a broken line does not stop the file")
+    void ndjsonRows() throws IOException {
+        List<ParsedRow> rows = read(Format.NDJSON, """
+                {"cardId":1,"amount":15,"description":"a, \\"quoted\\" text","type":"PAYMENT"}
+                {"cardId":2,"amount":
+                {"cardId":3,"amount":1,"description":"x","type":"TRANSFER","transactionDate":"2024-03-01T00:00:00"}
+                """);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).getDto().getDescription()).isEqualTo("a, \"quoted\" text");
+        assertThat(rows.get(1).getError()).startsWith("Malformed row: ");
+        assertThat(rows.get(2).getRow()).isEqualTo(3);
+        assertThat(rows.get(2).getDto().getTransactionDate()).isEqualTo(LocalDateTime.of(2024, 3, 1, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Empty CSV file has no rows")
+    void emptyCsv() throws IOException {
+        assertThat(read(Format.CSV, "")).isEmpty();
+        assertThat(read(Format.CSV, "cardId,amount,description,type\n")).isEmpty();
+    }
+
+    private List<ParsedRow> read(Format format, String content) throws IOException {
+        List<ParsedRow> rows = new ArrayList<>();
+        try (TransactionImportReader reader = new TransactionImportReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, objectMapper)) {
+            ParsedRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
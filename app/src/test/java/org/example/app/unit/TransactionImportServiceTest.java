@@ -0,0 +1,192 @@
+package org.example.app.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.example.app.component.BankMetrics;
+import org.example.app.component.HotCardLimitEngine;
+import org.example.app.component.PeriodWindows;
+import org.example.app.dto.transaction.TransactionImportReportDTO;
+import org.example.app.dto.transaction.TransactionImportResultDTO;
+import org.example.app.dto.transaction.TransactionImportResultDTO.Status;
+import org.example.app.mapper.LimitMapper;
+import org.example.app.model.Card;
+import org.example.app.model.Limit;
+import org.example.app.model.PeriodType;
+import org.example.app.model.Transaction;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.service.CardDailyTotalService;
+import org.example.app.service.LimitService;
+import org.example.app.service.OutboxService;
+import org.example.app.service.TransactionImportService;
+import org.example.app.service.TransactionImportService.Format;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TransactionImportServiceTest {
+    private static final String HEADER = "cardId,amount,description,type\n";
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private LimitRepository limitRepository;
+
+    @Mock
+    private SpendCounterRepository spendCounterRepository;
+
+    @Mock
+    private HotCardLimitEngine hotCardLimits;
+
+    @Mock
+    private LimitMapper limitMapper;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private CardDailyTotalService cardDailyTotalService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        LimitService limitService = new LimitService(transactionRepository, limitRepository, cardRepository,
+                spendCounterRepository, hotCardLimits, new PeriodWindows(1000), limitMapper,
+                new BankMetrics(new SimpleMeterRegistry()));
+        importService = new TransactionImportService(transactionRepository, cardRepository, limitService,
+                outboxService, cardDailyTotalService, transactionTemplate, new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "defaultChunkSize", 500);
+        ReflectionTestUtils.setField(importService, "maxChunkSize", 5000);
+
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+        given(cardRepository.findExistingIds(anyCollection())).willAnswer(invocation -> List.copyOf(
+                invocation.<Collection<Long>>getArgument(0)));
+        given(cardRepository.getReferenceById(anyLong())).willAnswer(invocation -> {
+            Card card = new Card();
+            card.setId(invocation.getArgument(0));
+            return card;
+        });
+        given(limitRepository.findByCardId(anyLong())).willReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Each chunk is written with one saveAll and rows of a card are checked against one budget")
+    void chunksAreBatched() {
+        TransactionImportReportDTO report = importCsv(HEADER
+                + "1,10,a,PAYMENT\n2,10,b,PAYMENT\n1,10,c,PAYMENT\n2,10,d,PAYMENT\n1,10,e,PAYMENT\n", 2);
+
+        assertThat(report.getTotal()).isEqualTo(5);
+        assertThat(report.getAccepted()).isEqualTo(5);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> batches = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(3)).saveAll(batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(2, 2, 1);
+        // По одной загрузке лимитов на карту в каждой порции
+        verify(limitRepository, times(3)).findByCardId(1L);
+        verify(limitRepository, times(2)).findByCardId(2L);
+    }
+
+    @Test
+    @DisplayName("Rows over the card limit are rejected against the running total of the chunk")
+    void limitRejection() {
+        Limit daily = new Limit();
+        daily.setPeriodType(PeriodType.DAILY);
+        daily.setLimitAmount(BigDecimal.valueOf(100));
+        daily.setPeriodStartDate(LocalDate.now().minusDays(1));
+        given(limitRepository.findByCardId(1L)).willReturn(List.of(daily));
+        given(spendCounterRepository.findAmount(1L, PeriodType.DAILY, LocalDate.now()))
+                .willReturn(Optional.of(BigDecimal.valueOf(20)));
+
+        TransactionImportReportDTO report = importCsv(HEADER
+                + "1,60,a,PAYMENT\n1,30,b,PAYMENT\n2,500,c,PAYMENT\n1,10,d,DEPOSIT\n", null);
+
+        assertThat(report.getRows()).extracting(TransactionImportResultDTO::getStatus)
+                .containsExactly(Status.ACCEPTED, Status.REJECTED, Status.ACCEPTED, Status.ACCEPTED);
+        assertThat(report.getRows().get(1).getError()).isEqualTo("Exceeding the limit");
+        // В счётчик попадает одна сумма по принятым списаниям карты, зачисление не учитывается
+        verify(spendCounterRepository).increment(1L, "DAILY", LocalDate.now(), BigDecimal.valueOf(60));
+    }
+
+    @Test
+    @DisplayName("Failed chunk is rolled back and reported, other chunks and invalid rows keep their results")
+    void chunkFailure() {
+        given(transactionRepository.saveAll(any()))
+                .willAnswer(invocation -> invocation.getArgument(0))
+                .willThrow(new DataIntegrityViolationException("constraint violated"))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionImportReportDTO report = importCsv(HEADER
+                + "1,10,a,PAYMENT\n1,-5,negative,PAYMENT\n2,10,b,PAYMENT\n3,10,c,PAYMENT\n4,10,d,PAYMENT\n", 2);
+
+        assertThat(report.getRows()).extracting(TransactionImportResultDTO::getStatus)
+                .containsExactly(Status.ACCEPTED, Status.REJECTED, Status.REJECTED, Status.REJECTED, Status.ACCEPTED);
+        assertThat(report.getRows().get(1).getError()).contains("amount");
+        assertThat(report.getRows().get(2).getError()).isEqualTo("constraint violated");
+        assertThat(report.getRows().get(3).getError()).isEqualTo("constraint violated");
+        assertThat(report.getAccepted()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Rows of unknown cards are rejected without failing the chunk")
+    void unknownCard() {
+        given(cardRepository.findExistingIds(anyCollection())).willReturn(List.of(1L));
+
+        TransactionImportReportDTO report = importCsv(HEADER + "1,10,a,PAYMENT\n9,10,b,PAYMENT\n", null);
+
+        assertThat(report.getRows()).extracting(TransactionImportResultDTO::getStatus)
+                .containsExactly(Status.ACCEPTED, Status.REJECTED);
+        assertThat(report.getRows().get(1).getError()).isEqualTo("Card not found with id 9");
+    }
+
+    private TransactionImportReportDTO importCsv(String content, Integer chunkSize) {
+        return importService.importTransactions(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), Format.CSV, chunkSize);
+    }
+}
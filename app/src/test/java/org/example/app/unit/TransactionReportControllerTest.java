@@ -0,0 +1,104 @@
+package org.example.app.unit;
+
+import org.example.app.controller.TransactionReportController;
+import org.example.app.dto.report.SpendReportDTO;
+import org.example.app.dto.report.TypeTotalDTO;
+import org.example.app.exception.ResourceNotFoundException;
+import org.example.app.handler.GlobalExceptionHandler;
+import org.example.app.model.TransactionType;
+import org.example.app.service.CardDailyTotalService;
+import org.example.app.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionReportControllerTest {
+    private final String BASE_URL = "/api/cards/{cardId}/reports";
+    private final LocalDate from = LocalDate.of(2024, 1, 1);
+    private final LocalDate to = LocalDate.of(2024, 1, 31);
+
+    @Mock
+    private CardDailyTotalService cardDailyTotalService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionReportController(cardDailyTotalService, transactionService))
+                .setControllerAdvice(GlobalExceptionHandler.class)
+                .build();
+    }
+
+    @Test
+    @DisplayName("GET /api/cards/{cardId}/reports/spend show spending for period")
+    void spendTest() throws Exception {
+        given(cardDailyTotalService.getSpendReport(1L, from, to))
+                .willReturn(new SpendReportDTO(1L, from, to, BigDecimal.valueOf(150), 3L));
+
+        mockMvc.perform(get(BASE_URL + "/spend", 1L)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(150))
+                .andExpect(jsonPath("$.transactionCount").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /api/cards/{cardId}/reports/by-type show totals by type")
+    void byTypeTest() throws Exception {
+        given(cardDailyTotalService.getTotalsByType(1L, from, to)).willReturn(List.of(
+                new TypeTotalDTO(TransactionType.DEPOSIT, BigDecimal.valueOf(500), 1L),
+                new TypeTotalDTO(TransactionType.PAYMENT, BigDecimal.valueOf(150), 3L)));
+
+        mockMvc.perform(get(BASE_URL + "/by-type", 1L)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].type").value("PAYMENT"));
+    }
+
+    @Test
+    @DisplayName("GET /api/cards/{cardId}/reports/spend invalid period")
+    void spendInvalidPeriodTest() throws Exception {
+        given(cardDailyTotalService.getSpendReport(1L, to, from))
+                .willThrow(new IllegalArgumentException("Start date must not be after end date"));
+
+        mockMvc.perform(get(BASE_URL + "/spend", 1L)
+                        .param("from", to.toString())
+                        .param("to", from.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/cards/{cardId}/reports/by-type card not found")
+    void byTypeCardNotFoundTest() throws Exception {
+        doThrow(new ResourceNotFoundException("Card not found"))
+                .when(transactionService).checkCardExists(anyLong());
+
+        mockMvc.perform(get(BASE_URL + "/by-type", 1L)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.app.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.app.dto.transaction.TransactionCreateDTO;
+import org.example.app.dto.transaction.TransactionUpdateDTO;
+import org.example.app.mapper.TransactionMapperImpl;
+import org.example.app.model.Card;
+import org.example.app.model.Transaction;
+import org.example.app.model.TransactionType;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.service.CardDailyTotalService;
+import org.example.app.service.LimitService;
+import org.example.app.service.OutboxService;
+import org.example.app.service.TransactionService;
+import org.example.app.specification.KeysetSpecification;
+import org.example.app.specification.TransactionSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionServiceTest {
+    private static final Long CARD_ID = 3L;
+    private static final LocalDateTime YESTERDAY = LocalDate.now().minusDays(1).atTime(10, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionSpecification specBuilder;
+
+    @Mock
+    private KeysetSpecification keyset;
+
+    @Mock
+    private LimitService limitService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private CardDailyTotalService cardDailyTotalService;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    private TransactionService transactionService;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = new TransactionService(transactionRepository, specBuilder, keyset,
+                new TransactionMapperImpl(), limitService, outboxService, cardDailyTotalService,
+                cardRepository, new ObjectMapper());
+        card = new Card();
+        card.setId(CARD_ID);
+    }
+
+    @Test
+    @DisplayName("New transaction is checked against limits and added to the spend counters")
+    void saveRecordsSpending() {
+        given(cardRepository.findById(CARD_ID)).willReturn(Optional.of(card));
+        given(transactionRepository.save(any())).willAnswer(invocation -> {
+            Transaction saved = invocation.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
+
+        transactionService.save(new TransactionCreateDTO(BigDecimal.valueOf(25), "payment", TransactionType.PAYMENT),
+                CARD_ID);
+
+        InOrder order = inOrder(limitService);
+        order.verify(limitService).checkLimit(CARD_ID, BigDecimal.valueOf(25));
+        order.verify(limitService).recordSpending(CARD_ID, TransactionType.PAYMENT, LocalDate.now(),
+                BigDecimal.valueOf(25));
+    }
+
+    @Test
+    @DisplayName("Update takes the old amount out of its period and adds the new amount to the new period")
+    void updateMovesSpending() {
+        Transaction transaction = transaction(BigDecimal.valueOf(40), TransactionType.WITHDRAWAL, YESTERDAY);
+        given(transactionRepository.findById(10L)).willReturn(Optional.of(transaction));
+
+        transactionService.update(10L, new TransactionUpdateDTO(BigDecimal.valueOf(70), "payment",
+                YESTERDAY.plusDays(1), TransactionType.PAYMENT));
+
+        InOrder order = inOrder(limitService);
+        order.verify(limitService).recordSpending(CARD_ID, TransactionType.WITHDRAWAL, YESTERDAY.toLocalDate(),
+                BigDecimal.valueOf(-40));
+        order.verify(limitService).recordSpending(CARD_ID, TransactionType.PAYMENT, LocalDate.now(),
+                BigDecimal.valueOf(70));
+    }
+
+    @Test
+    @DisplayName("Delete takes the amount out of the counters of its period")
+    void deleteRevertsSpending() {
+        Transaction transaction = transaction(BigDecimal.valueOf(40), TransactionType.PAYMENT, YESTERDAY);
+        given(transactionRepository.findById(10L)).willReturn(Optional.of(transaction));
+
+        transactionService.delete(10L);
+
+        verify(limitService).recordSpending(CARD_ID, TransactionType.PAYMENT, YESTERDAY.toLocalDate(),
+                BigDecimal.valueOf(-40));
+        verify(transactionRepository).delete(transaction);
+    }
+
+    @Test
+    @DisplayName("Statement period with the start after the end is rejected")
+    void statementPeriodStartAfterEnd() {
+        LocalDate today = LocalDate.now();
+
+        transactionService.checkStatementPeriod(today, today);
+        assertThatThrownBy(() -> transactionService.checkStatementPeriod(today, today.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Transaction transaction(BigDecimal amount, TransactionType type, LocalDateTime date) {
+        Transaction transaction = new Transaction();
+        transaction.setId(10L);
+        transaction.setAmount(amount);
+        transaction.setType(type);
+        transaction.setTransactionDate(date);
+        transaction.setDescription("transaction");
+        transaction.setCard(card);
+        return transaction;
+    }
+}
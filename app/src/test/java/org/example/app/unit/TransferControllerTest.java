@@ -3,9 +3,14 @@ package org.example.app.unit;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.app.component.UserUtils;
 import org.example.app.controller.TransferController;
+import org.example.app.dto.BatchTransferDTO;
+import org.example.app.dto.BatchTransferReportDTO;
 import org.example.app.dto.TransferDTO;
 import org.example.app.handler.GlobalExceptionHandler;
 import org.example.app.model.User;
+import org.example.app.service.IdempotencyService;
+import org.example.app.service.IdempotencyService.IdempotentResult;
+import org.example.app.service.IdempotencyService.Recorder;
 import org.example.app.service.TransferService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,12 +25,21 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Function;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransferController.class)
@@ -46,15 +60,23 @@ public class TransferControllerTest {
     @MockBean
     private UserUtils userUtils;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     private TransferDTO validTransferDTO;
     private TransferDTO invalidTransferDTO;
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(new TransferController(transferService, userUtils))
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransferController(transferService, userUtils, idempotencyService))
                 .setControllerAdvice(GlobalExceptionHandler.class)
                 .build();
 
+        // Без сохранённого ответа запрос выполняется как обычно
+        given(idempotencyService.execute(anyLong(), any(), anyString(), any(), any(), any()))
+                .willAnswer(invocation -> new IdempotentResult<>(
+                        invocation.<Function<Recorder<Object>, Object>>getArgument(5).apply(Recorder.none()), false));
+
         // Валидный DTO для перевода
         validTransferDTO = new TransferDTO();
         validTransferDTO.setFromCardId(1L);
@@ -80,7 +102,7 @@ public class TransferControllerTest {
 
         // Мок сервиса - успешное выполнение
         doNothing().when(transferService)
-                .transferBetweenOwnCards(anyLong(), any(TransferDTO.class));
+                .transferBetweenOwnCards(anyLong(), any(TransferDTO.class), any());
 
         mockMvc.perform(post(BASE_URL)
                         .contentType(JSON_CONTENT_TYPE)
@@ -88,6 +110,25 @@ public class TransferControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Repeated transfer with the same Idempotency-Key is not executed again")
+    void transferBetweenOwnCards_Replayed() throws Exception {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        given(userUtils.getCurrentUser()).willReturn(mockUser);
+        willReturn(new IdempotentResult<>(null, true)).given(idempotencyService)
+                .execute(eq(1L), eq("key-1"), eq("transfer"), any(), eq(Void.class), any());
+
+        mockMvc.perform(post(BASE_URL)
+                        .header(IdempotencyService.KEY_HEADER, "key-1")
+                        .contentType(JSON_CONTENT_TYPE)
+                        .content(objectMapper.writeValueAsString(validTransferDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"));
+
+        verify(transferService, never()).transferBetweenOwnCards(anyLong(), any(TransferDTO.class), any());
+    }
+
     @Test
     @DisplayName("Attempted translation with invalid data")
     void transferBetweenOwnCards_InvalidData() throws Exception {
@@ -126,4 +167,37 @@ public class TransferControllerTest {
                         .content(objectMapper.writeValueAsString(noDescriptionTransfer)))
                 .andExpect(status().isBadRequest());
     }
-}
+
+    @Test
+    @DisplayName("Batch transfer returns the report of the batch")
+    void transferBatch_Success() throws Exception {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        given(userUtils.getCurrentUser()).willReturn(mockUser);
+        given(transferService.transferBatch(eq(1L), any(BatchTransferDTO.class), any()))
+                .willReturn(new BatchTransferReportDTO(2, 2, 0, List.of()));
+
+        BatchTransferDTO batch = new BatchTransferDTO(BatchTransferDTO.Mode.BEST_EFFORT,
+                List.of(validTransferDTO, validTransferDTO));
+
+        mockMvc.perform(post("/api/users/transfers/batch")
+                        .contentType(JSON_CONTENT_TYPE)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(2));
+    }
+
+    @Test
+    @DisplayName("Batch with an invalid transfer is rejected")
+    void transferBatch_InvalidItem() throws Exception {
+        BatchTransferDTO batch = new BatchTransferDTO(BatchTransferDTO.Mode.ALL_OR_NOTHING,
+                List.of(validTransferDTO, invalidTransferDTO));
+
+        mockMvc.perform(post("/api/users/transfers/batch")
+                        .contentType(JSON_CONTENT_TYPE)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isBadRequest());
+
+        verify(transferService, never()).transferBatch(anyLong(), any(BatchTransferDTO.class), any());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,279 @@
+package org.example.app.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.app.component.BankMetrics;
+import org.example.app.component.HotCardLimitEngine;
+import org.example.app.component.PeriodWindows;
+import org.example.app.component.TransferProperties;
+import org.example.app.component.TransferProperties.ConcurrencyMode;
+import org.example.app.dto.BatchTransferDTO;
+import org.example.app.dto.BatchTransferReportDTO;
+import org.example.app.dto.BatchTransferResultDTO;
+import org.example.app.dto.TransferDTO;
+import org.example.app.exception.InsufficientFundsException;
+import org.example.app.exception.LimitExceededException;
+import org.example.app.exception.ResourceNotFoundException;
+import org.example.app.mapper.LimitMapper;
+import org.example.app.model.Card;
+import org.example.app.model.Limit;
+import org.example.app.model.PeriodType;
+import org.example.app.model.Transaction;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.service.CardDailyTotalService;
+import org.example.app.service.LimitService;
+import org.example.app.service.OutboxService;
+import org.example.app.service.TransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TransferServiceTest {
+    private static final Long USER_ID = 7L;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private LimitRepository limitRepository;
+
+    @Mock
+    private SpendCounterRepository spendCounterRepository;
+
+    @Mock
+    private HotCardLimitEngine hotCardLimits;
+
+    @Mock
+    private LimitMapper limitMapper;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private CardDailyTotalService cardDailyTotalService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private TransferProperties transferProperties;
+    private TransferService transferService;
+    private Card first;
+    private Card second;
+
+    @BeforeEach
+    void setUp() {
+        BankMetrics metrics = new BankMetrics(new SimpleMeterRegistry());
+        LimitService limitService = new LimitService(transactionRepository, limitRepository, cardRepository,
+                spendCounterRepository, hotCardLimits, new PeriodWindows(1000), limitMapper, metrics);
+        transferProperties = new TransferProperties();
+        transferService = new TransferService(transactionRepository, cardRepository, limitService,
+                outboxService, cardDailyTotalService, transactionTemplate, transferProperties, metrics);
+
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+
+        first = card(1L, 100);
+        second = card(2L, 0);
+        given(cardRepository.findAllByIdInAndUserIdForUpdate(any(), anyLong())).willReturn(List.of(first, second));
+        given(limitRepository.findByCardId(anyLong())).willReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Best effort batch checks balances against running totals and rejects only failed transfers")
+    void bestEffortUsesRunningBalances() {
+        BatchTransferDTO batch = batch(BatchTransferDTO.Mode.BEST_EFFORT,
+                transfer(1L, 2L, 60), transfer(1L, 2L, 60), transfer(2L, 1L, 30));
+
+        BatchTransferReportDTO report = transferService.transferBatch(USER_ID, batch);
+
+        assertThat(report.getTotal()).isEqualTo(3);
+        assertThat(report.getCompleted()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(report.getItems().get(1).getStatus()).isEqualTo(BatchTransferResultDTO.Status.REJECTED);
+        assertThat(first.getBalance()).isEqualByComparingTo("70");
+        assertThat(second.getBalance()).isEqualByComparingTo("30");
+
+        // Проводки всех переводов пишутся одним вызовом
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> rows = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(1)).saveAll(rows.capture());
+        assertThat(rows.getValue()).hasSize(4);
+        verify(outboxService, times(1)).transactionsCreated(rows.getValue());
+        verify(cardDailyTotalService, times(1)).transactionsCreated(rows.getValue());
+        verify(cardRepository, times(1)).findAllByIdInAndUserIdForUpdate(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("All-or-nothing batch fails on the first failed transfer without writing the ledger")
+    void allOrNothingFailsWholeBatch() {
+        BatchTransferDTO batch = batch(BatchTransferDTO.Mode.ALL_OR_NOTHING,
+                transfer(1L, 2L, 60), transfer(1L, 2L, 60));
+
+        assertThatThrownBy(() -> transferService.transferBatch(USER_ID, batch))
+                .isInstanceOf(InsufficientFundsException.class)
+                .hasMessageStartingWith("Transfer #1");
+
+        verify(transactionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Card limit is checked against spending of earlier transfers in the batch")
+    void limitUsesRunningTotals() {
+        first.setBalance(BigDecimal.valueOf(1000));
+        Limit daily = new Limit();
+        daily.setPeriodType(PeriodType.DAILY);
+        daily.setLimitAmount(BigDecimal.valueOf(100));
+        daily.setPeriodStartDate(LocalDate.now());
+        given(limitRepository.findByCardId(1L)).willReturn(List.of(daily));
+        given(spendCounterRepository.findAmount(1L, PeriodType.DAILY, daily.getPeriodStartDate()))
+                .willReturn(Optional.of(BigDecimal.ZERO));
+
+        BatchTransferReportDTO report = transferService.transferBatch(USER_ID,
+                batch(BatchTransferDTO.Mode.BEST_EFFORT, transfer(1L, 2L, 60), transfer(1L, 2L, 60)));
+
+        assertThat(report.getCompleted()).isEqualTo(1);
+        assertThat(report.getItems().get(1).getError()).contains("Exceeding the limit");
+        verify(limitRepository, times(1)).findByCardId(1L);
+    }
+
+    @Test
+    @DisplayName("Atomic transfer rejects insufficient funds when the conditional withdrawal updates no row")
+    void atomicInsufficientFunds() {
+        given(cardRepository.withdraw(1L, USER_ID, BigDecimal.TEN)).willReturn(0);
+        given(cardRepository.findByIdAndUserId(1L, USER_ID)).willReturn(Optional.of(first));
+
+        assertThatThrownBy(() -> transferService.transferBetweenOwnCards(USER_ID, transfer(1L, 2L, 10)))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        verify(cardRepository, never()).deposit(anyLong(), anyLong(), any());
+        verify(transactionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Atomic transfer reports a missing card only after the conditional update fails")
+    void atomicCardNotFound() {
+        given(cardRepository.withdraw(1L, USER_ID, BigDecimal.TEN)).willReturn(0);
+        given(cardRepository.findByIdAndUserId(1L, USER_ID)).willReturn(Optional.empty());
+
+        assertThatThrownBy(() -> transferService.transferBetweenOwnCards(USER_ID, transfer(1L, 2L, 10)))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Card not found for id 1");
+
+        given(cardRepository.withdraw(1L, USER_ID, BigDecimal.TEN)).willReturn(1);
+        given(cardRepository.deposit(2L, USER_ID, BigDecimal.TEN)).willReturn(0);
+
+        assertThatThrownBy(() -> transferService.transferBetweenOwnCards(USER_ID, transfer(1L, 2L, 10)))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Card not found for id 2");
+        verify(transactionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Atomic transfer updates cards in ascending id order and writes both ledger rows")
+    void atomicUpdatesInIdOrder() {
+        given(cardRepository.withdraw(2L, USER_ID, BigDecimal.TEN)).willReturn(1);
+        given(cardRepository.deposit(1L, USER_ID, BigDecimal.TEN)).willReturn(1);
+
+        transferService.transferBetweenOwnCards(USER_ID, transfer(2L, 1L, 10));
+
+        InOrder order = inOrder(cardRepository);
+        order.verify(cardRepository).deposit(1L, USER_ID, BigDecimal.TEN);
+        order.verify(cardRepository).withdraw(2L, USER_ID, BigDecimal.TEN);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> rows = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(rows.capture());
+        assertThat(rows.getValue()).extracting(Transaction::getDescription)
+                .containsExactly("Transfer to card 1", "Transfer from card 2");
+    }
+
+    @Test
+    @DisplayName("Limit rejection after both balance updates fails the transaction without writing the ledger")
+    void atomicLimitRejection() {
+        given(cardRepository.withdraw(1L, USER_ID, BigDecimal.valueOf(60))).willReturn(1);
+        given(cardRepository.deposit(2L, USER_ID, BigDecimal.valueOf(60))).willReturn(1);
+        Limit daily = new Limit();
+        daily.setPeriodType(PeriodType.DAILY);
+        daily.setLimitAmount(BigDecimal.valueOf(100));
+        daily.setPeriodStartDate(LocalDate.now());
+        given(limitRepository.findByCardId(1L)).willReturn(List.of(daily));
+        given(spendCounterRepository.findAmount(1L, PeriodType.DAILY, LocalDate.now()))
+                .willReturn(Optional.of(BigDecimal.valueOf(50)));
+
+        // Исключение выходит из TransactionTemplate, который откатывает оба UPDATE
+        assertThatThrownBy(() -> transferService.transferBetweenOwnCards(USER_ID, transfer(1L, 2L, 60)))
+                .isInstanceOf(LimitExceededException.class);
+
+        InOrder order = inOrder(cardRepository, limitRepository);
+        order.verify(cardRepository).withdraw(1L, USER_ID, BigDecimal.valueOf(60));
+        order.verify(cardRepository).deposit(2L, USER_ID, BigDecimal.valueOf(60));
+        order.verify(limitRepository).findByCardId(1L);
+        verify(transactionRepository, never()).saveAll(any());
+        verify(spendCounterRepository, never()).increment(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Locking modes write the same ledger descriptions as the atomic mode")
+    void lockingModeLedgerText() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.PESSIMISTIC);
+        first.setCardNumber("encrypted-1");
+        second.setCardNumber("encrypted-2");
+
+        transferService.transferBetweenOwnCards(USER_ID, transfer(1L, 2L, 10));
+
+        ArgumentCaptor<Transaction> rows = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository, times(2)).save(rows.capture());
+        assertThat(rows.getAllValues()).extracting(Transaction::getDescription)
+                .containsExactly("Transfer to card 2", "Transfer from card 1");
+    }
+
+    private static Card card(Long id, long balance) {
+        Card card = new Card();
+        card.setId(id);
+        card.setBalance(BigDecimal.valueOf(balance));
+        return card;
+    }
+
+    private static TransferDTO transfer(Long fromCardId, Long toCardId, long amount) {
+        return new TransferDTO(fromCardId, toCardId, BigDecimal.valueOf(amount), "batch");
+    }
+
+    private static BatchTransferDTO batch(BatchTransferDTO.Mode mode, TransferDTO... transfers) {
+        return new BatchTransferDTO(mode, List.of(transfers));
+    }
+}
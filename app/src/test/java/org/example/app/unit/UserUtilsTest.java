@@ -0,0 +1,90 @@
+package org.example.app.unit;
+
+import org.example.app.component.UserUtils;
+import org.example.app.model.Role;
+import org.example.app.model.User;
+import org.example.app.repository.UserRepository;
+import org.example.app.service.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class UserUtilsTest {
+    private static final String EMAIL = "user@example.com";
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserUtils userUtils;
+
+    @BeforeEach
+    void setUp() {
+        userUtils = new UserUtils(userDetailsService, userRepository);
+        ReflectionTestUtils.setField(userUtils, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(userUtils, "cacheTtl", Duration.ofMinutes(5));
+        userUtils.initCache();
+
+        User user = new User();
+        user.setId(7L);
+        user.setEmail(EMAIL);
+        user.setRole(Role.USER);
+        given(userRepository.findByEmail(EMAIL)).willReturn(Optional.of(user));
+
+        TestingAuthenticationToken auth = new TestingAuthenticationToken(EMAIL, null, "USER");
+        auth.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(auth);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Current user is read from the database once across requests")
+    void currentUserIsCachedBySubject() {
+        for (int i = 0; i < 3; i++) {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            User first = userUtils.getCurrentUser();
+            User second = userUtils.getCurrentUser();
+
+            assertThat(first.getId()).isEqualTo(7L);
+            assertThat(second.getRole()).isEqualTo(Role.USER);
+        }
+
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Evicted user is reloaded on the next request")
+    void evictReloadsUser() {
+        userUtils.getCurrentUser();
+        userUtils.evict(EMAIL);
+        userUtils.getCurrentUser();
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+}
@@ -23,7 +23,10 @@ public class EntityGenerator {
     public Card createCard() {
         return Instancio.of(Card.class)
                 .ignore(field(Card::getId))
+                .ignore(field(Card::getVersion))
                 .set(field(Card::getCardNumber), faker.text().text(16))
+                .ignore(field(Card::getCardNumberHash))
+                .set(field(Card::getCardLast4), faker.number().digits(4))
                 .set(field(Card::getCardHolderName), faker.internet().username())
                 .set(field(Card::getBalance),
                         BigDecimal.valueOf(faker.number().randomDouble(2, 50000, 1000000)))
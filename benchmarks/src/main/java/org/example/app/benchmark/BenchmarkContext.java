@@ -0,0 +1,151 @@
+package org.example.app.benchmark;
+
+import org.example.app.AppApplication;
+import org.example.app.component.CardNumbers;
+import org.example.app.component.CryptoEncoder;
+import org.example.app.model.Card;
+import org.example.app.model.StatusCard;
+import org.example.app.model.User;
+import org.example.app.repository.CardRepository;
+import org.example.app.repository.UserRepository;
+import org.example.app.util.EntityGenerator;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Контекст приложения для бенчмарков. По умолчанию поднимает Postgres в Testcontainers,
+ * с {@code -Dbenchmark.jdbc-url=...} (и {@code benchmark.jdbc-username/password})
+ * использует уже запущенную локальную базу. Для JMH контекст один на форк,
+ * нагрузочный тест поднимает отдельный сервер на каждый режим.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+    private static final AtomicLong CARD_NUMBERS = new AtomicLong(System.nanoTime() % 1_000_000_000L);
+
+    private static BenchmarkContext shared;
+    private static int users;
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+    private final EntityGenerator entityGenerator = new EntityGenerator();
+
+    private BenchmarkContext(WebApplicationType webApplicationType, String... properties) {
+        String url = System.getProperty("benchmark.jdbc-url");
+        String username = System.getProperty("benchmark.jdbc-username", "root");
+        String password = System.getProperty("benchmark.jdbc-password", "password");
+        if (url == null) {
+            postgres = new PostgreSQLContainer<>("postgres:13-alpine");
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            username = postgres.getUsername();
+            password = postgres.getPassword();
+        } else {
+            postgres = null;
+        }
+
+        Map<String, String> arguments = new LinkedHashMap<>();
+        arguments.put("spring.datasource.url", url);
+        arguments.put("spring.datasource.username", username);
+        arguments.put("spring.datasource.password", password);
+        arguments.put("spring.jpa.show-sql", "false");
+        arguments.put("spring.main.banner-mode", "off");
+        arguments.put("logging.level.root", "WARN");
+        arguments.put("logging.level.org.example", "WARN");
+        arguments.put("encryption.reencryption.enabled", "false");
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            arguments.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+
+        // Аргументы командной строки, а не default properties: те перекрываются application.yaml
+        context = new SpringApplicationBuilder(AppApplication.class)
+                .web(webApplicationType)
+                .run(arguments.entrySet().stream()
+                        .map(argument -> "--" + argument.getKey() + "=" + argument.getValue())
+                        .toArray(String[]::new));
+    }
+
+    public static synchronized BenchmarkContext start() {
+        if (shared == null) {
+            shared = new BenchmarkContext(WebApplicationType.NONE, "spring.datasource.hikari.maximum-pool-size=16");
+        }
+        users++;
+        return shared;
+    }
+
+    public static synchronized void stop() {
+        if (--users > 0) {
+            return;
+        }
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Запускает приложение с веб-сервером на свободном порту. Свойства
+     * переопределяют настройки по умолчанию, в том числе размер пула соединений.
+     */
+    public static BenchmarkContext startServer(String... properties) {
+        String[] serverProperties = Arrays.copyOf(properties, properties.length + 2);
+        serverProperties[properties.length] = "server.port=0";
+        serverProperties[properties.length + 1] = "management.server.port=0";
+        return new BenchmarkContext(WebApplicationType.SERVLET, serverProperties);
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public EntityGenerator entityGenerator() {
+        return entityGenerator;
+    }
+
+    public User createUser() {
+        return bean(UserRepository.class).save(entityGenerator.createUser());
+    }
+
+    /**
+     * Создаёт активные карты пользователя с зашифрованным номером и слепым индексом.
+     */
+    public List<Card> createCards(User user, int count, BigDecimal balance) {
+        CryptoEncoder encoder = bean(CryptoEncoder.class);
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String cardNumber = String.format("4000%012d", CARD_NUMBERS.incrementAndGet());
+            Card card = entityGenerator.createCard();
+            card.setCardNumber(encoder.encrypt(cardNumber));
+            card.setCardNumberHash(encoder.hash(cardNumber));
+            card.setCardLast4(CardNumbers.last4(cardNumber));
+            card.setStatus(StatusCard.ACTIVE);
+            card.setBalance(balance);
+            card.setUser(user);
+            card.setTransactions(new ArrayList<>());
+            card.setLimits(new ArrayList<>());
+            cards.add(card);
+        }
+        return bean(CardRepository.class).saveAll(cards);
+    }
+}
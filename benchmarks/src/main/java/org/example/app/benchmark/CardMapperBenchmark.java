@@ -0,0 +1,86 @@
+package org.example.app.benchmark;
+
+import org.example.app.dto.card.CardDTO;
+import org.example.app.mapper.CardMapper;
+import org.example.app.model.Card;
+import org.example.app.model.Limit;
+import org.example.app.model.Transaction;
+import org.example.app.model.User;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг одной карты и страницы карт в {@link CardDTO}, включая выборку
+ * id транзакций и лимитов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardMapperBenchmark {
+    @Param({"50", "500"})
+    private int pageSize;
+
+    @Param({"5"})
+    private int transactionsPerCard;
+
+    private BenchmarkContext context;
+    private CardMapper cardMapper;
+    private List<Card> cards;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardMapper = context.bean(CardMapper.class);
+
+        User user = context.createUser();
+        cards = context.createCards(user, pageSize, BigDecimal.valueOf(100000));
+
+        List<Transaction> transactions = new ArrayList<>();
+        List<Limit> limits = new ArrayList<>();
+        for (Card card : cards) {
+            for (int i = 0; i < transactionsPerCard; i++) {
+                transactions.add(context.entityGenerator().createTransaction(card));
+            }
+            Limit limit = context.entityGenerator().createLimit();
+            limit.setCard(card);
+            limits.add(limit);
+        }
+        context.bean(TransactionRepository.class).saveAll(transactions);
+        context.bean(LimitRepository.class).saveAll(limits);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    @Benchmark
+    public CardDTO mapSingle() {
+        return cardMapper.map(cards.get(0));
+    }
+
+    @Benchmark
+    public List<CardDTO> mapList() {
+        return cardMapper.map(cards);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.app.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.app.component.BankMetrics;
+import org.example.app.component.CryptoEncoder;
+import org.example.app.component.EncryptionProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение {@link CryptoEncoder} с прежней реализацией, которая на каждый вызов
+ * создавала Cipher, ключ и SecureRandom.
+ * <p>
+ * Запуск на 1 и N потоках (N - число ядер):
+ * <pre>
+ * mvn -q install -DskipTests
+ * mvn -pl benchmarks exec:exec -Djmh.args="CryptoEncoderBenchmark -t 1"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoEncoderBenchmark {
+    private static final String SECRET = "benchmarkSecretKey12345678901234";
+    private static final String INDEX_SECRET = "benchmarkIndexKey123456789012345";
+    private static final String CARD_NUMBER = "4000123412341234";
+
+    private CryptoEncoder encoder;
+    private LegacyCryptoEncoder legacy;
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        encoder = new CryptoEncoder(new EncryptionProperties(), new BankMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(encoder, "secretKey", SECRET);
+        ReflectionTestUtils.setField(encoder, "indexKey", INDEX_SECRET);
+        encoder.validateKey();
+        legacy = new LegacyCryptoEncoder(SECRET);
+        // Без активного id ключа пишется прежний формат, обе реализации читают одни и те же данные
+        encrypted = encoder.encrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encoder.encrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encoder.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() {
+        return legacy.encrypt(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() {
+        return legacy.decrypt(encrypted);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int[] threads = {1, Runtime.getRuntime().availableProcessors()};
+        for (int count : threads) {
+            Options options = new OptionsBuilder()
+                    .include(CryptoEncoderBenchmark.class.getSimpleName())
+                    .threads(count)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    /**
+     * Прежняя реализация шифрования, оставлена только для сравнения.
+     */
+    static class LegacyCryptoEncoder {
+        private final String secretKey;
+
+        LegacyCryptoEncoder(String secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        String encrypt(String data) {
+            try {
+                byte[] iv = new byte[12];
+                new SecureRandom().nextBytes(iv);
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                GCMParameterSpec spec = new GCMParameterSpec(128, iv);
+                SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "AES");
+
+                cipher.init(Cipher.ENCRYPT_MODE, keySpec, spec);
+                byte[] encrypted = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
+
+                byte[] combined = new byte[iv.length + encrypted.length];
+                System.arraycopy(iv, 0, combined, 0, iv.length);
+                System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
+
+                return Base64.getEncoder().encodeToString(combined);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        String decrypt(String encryptedData) {
+            try {
+                byte[] combined = Base64.getDecoder().decode(encryptedData);
+                byte[] iv = new byte[12];
+                byte[] encrypted = new byte[combined.length - 12];
+
+                System.arraycopy(combined, 0, iv, 0, iv.length);
+                System.arraycopy(combined, iv.length, encrypted, 0, encrypted.length);
+
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                GCMParameterSpec spec = new GCMParameterSpec(128, iv);
+                SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "AES");
+
+                cipher.init(Cipher.DECRYPT_MODE, keySpec, spec);
+                return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.app.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.app.component.HotCardLimitEngine;
+import org.example.app.component.HotCardLimitProperties;
+import org.example.app.component.PeriodWindows;
+import org.example.app.dto.limit.LimitCreateDTO;
+import org.example.app.model.Card;
+import org.example.app.model.PeriodType;
+import org.example.app.model.WindowAlignment;
+import org.example.app.model.Transaction;
+import org.example.app.model.TransactionType;
+import org.example.app.model.User;
+import org.example.app.repository.LimitRepository;
+import org.example.app.repository.SpendCounterRepository;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.service.LimitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка лимитов карты с дневным и месячным лимитом и историей транзакций:
+ * по счётчикам в базе и по состоянию карты в памяти {@link HotCardLimitEngine}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LimitServiceBenchmark {
+    @Param({"1000", "20000"})
+    private int transactions;
+
+    private BenchmarkContext context;
+    private LimitService limitService;
+    private HotCardLimitEngine hotCardLimits;
+    private Long cardId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        limitService = context.bean(LimitService.class);
+
+        User user = context.createUser();
+        Card card = context.createCards(user, 1, BigDecimal.valueOf(100000)).get(0);
+        cardId = card.getId();
+
+        // История за месяц, чтобы счётчики и запросы сумм работали на реальном объёме
+        List<Transaction> history = new ArrayList<>(transactions);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = context.entityGenerator().createTransaction(card);
+            transaction.setType(TransactionType.PAYMENT);
+            transaction.setAmount(BigDecimal.ONE);
+            transaction.setTransactionDate(now.minusMinutes((long) i * 30 * 24 * 60 / transactions));
+            history.add(transaction);
+        }
+        context.bean(TransactionRepository.class).saveAll(history);
+
+        BigDecimal unlimited = BigDecimal.valueOf(1_000_000_000L);
+        LocalDate today = LocalDate.now();
+        limitService.save(new LimitCreateDTO(PeriodType.DAILY, unlimited, today, WindowAlignment.ANCHORED), cardId);
+        limitService.save(new LimitCreateDTO(PeriodType.MONTHLY, unlimited, today,
+                WindowAlignment.CALENDAR), cardId);
+
+        HotCardLimitProperties properties = new HotCardLimitProperties();
+        properties.setEnabled(true);
+        hotCardLimits = new HotCardLimitEngine(properties, context.bean(LimitRepository.class),
+                context.bean(SpendCounterRepository.class), context.bean(PeriodWindows.class),
+                new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    @Benchmark
+    public void checkLimit() {
+        limitService.checkLimit(cardId, BigDecimal.TEN);
+    }
+
+    @Benchmark
+    public PeriodType checkLimitInMemory() {
+        return hotCardLimits.findExceeded(cardId, BigDecimal.TEN);
+    }
+}
@@ -0,0 +1,262 @@
+package org.example.app.benchmark;
+
+import org.example.app.model.Card;
+import org.example.app.model.Role;
+import org.example.app.model.User;
+import org.example.app.repository.UserRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Нагрузочный тест листинга карт и переводов на пуле потоков Tomcat и на виртуальных
+ * потоках. Для каждого режима поднимается отдельный сервер с чистой базой, клиентские
+ * потоки в течение заданного времени выполняют запросы вперемешку, после прогрева
+ * замеряются пропускная способность и p50/p99.
+ * <pre>
+ * mvn -Pjdk21 -q install -DskipTests
+ * mvn -Pjdk21 -pl benchmarks exec:exec@load -Dload.args="platform virtual --concurrency=400"
+ * </pre>
+ * Параметры: {@code --concurrency} (200), {@code --users} (20), {@code --warmup} (10s),
+ * {@code --duration} (30s). Режим virtual пропускается на JDK ниже 21.
+ */
+public final class LoadTest {
+    private static final String PASSWORD = "load-test-password";
+    private static final int CARDS_PER_USER = 50;
+
+    private enum Operation {
+        CARD_LISTING,
+        TRANSFER
+    }
+
+    private final int concurrency;
+    private final int users;
+    private final Duration warmup;
+    private final Duration duration;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    private LoadTest(Map<String, String> options) {
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        this.users = Integer.parseInt(options.getOrDefault("users", "20"));
+        this.warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        this.duration = parseDuration(options.getOrDefault("duration", "30s"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            } else {
+                modes.add(arg);
+            }
+        }
+        if (modes.isEmpty()) {
+            modes = List.of("platform", "virtual");
+        }
+
+        LoadTest loadTest = new LoadTest(options);
+        List<String> report = new ArrayList<>();
+        report.add(String.format(Locale.ROOT, "%-9s %-13s %9s %7s %10s %8s %8s",
+                "mode", "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms"));
+        for (String mode : modes) {
+            report.addAll(loadTest.run(mode));
+        }
+        report.forEach(System.out::println);
+    }
+
+    private List<String> run(String mode) throws Exception {
+        boolean virtual = mode.equals("virtual");
+        if (virtual && Runtime.version().feature() < 21) {
+            System.out.println("Skipping virtual mode: JDK 21 is required, running on " + Runtime.version());
+            return List.of();
+        }
+
+        String[] properties = virtual
+                ? new String[]{"spring.profiles.active=virtual-threads"}
+                : new String[0];
+        try (BenchmarkContext context = BenchmarkContext.startServer(properties)) {
+            String baseUrl = "http://localhost:" + context.port();
+            List<Client> clients = seed(context, baseUrl);
+
+            Map<Operation, Latencies> total = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                total.put(operation, new Latencies());
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+            try {
+                long start = System.nanoTime();
+                long measureFrom = start + warmup.toNanos();
+                long end = measureFrom + duration.toNanos();
+
+                List<Future<Map<Operation, Latencies>>> workers = new ArrayList<>();
+                for (int i = 0; i < concurrency; i++) {
+                    Client user = clients.get(i % clients.size());
+                    workers.add(executor.submit(() -> work(baseUrl, user, measureFrom, end)));
+                }
+                for (Future<Map<Operation, Latencies>> worker : workers) {
+                    worker.get().forEach((operation, latencies) -> total.get(operation).addAll(latencies));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            List<String> lines = new ArrayList<>();
+            double seconds = duration.toNanos() / 1e9;
+            total.forEach((operation, latencies) -> lines.add(String.format(Locale.ROOT,
+                    "%-9s %-13s %9d %7d %10.1f %8.2f %8.2f",
+                    mode, operation, latencies.size, latencies.errors, latencies.size / seconds,
+                    latencies.percentile(0.50) / 1e6, latencies.percentile(0.99) / 1e6)));
+            return lines;
+        }
+    }
+
+    /**
+     * Создаёт пользователей с картами и получает для каждого токен через /login.
+     */
+    private List<Client> seed(BenchmarkContext context, String baseUrl) throws IOException, InterruptedException {
+        PasswordEncoder passwordEncoder = context.bean(PasswordEncoder.class);
+        UserRepository userRepository = context.bean(UserRepository.class);
+
+        List<Client> clients = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = context.entityGenerator().createUser();
+            user.setRole(Role.USER);
+            user.setPassword(passwordEncoder.encode(PASSWORD));
+            user = userRepository.save(user);
+
+            long[] cardIds = context.createCards(user, CARDS_PER_USER, BigDecimal.valueOf(1_000_000_000L)).stream()
+                    .mapToLong(Card::getId)
+                    .toArray();
+
+            HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"email\":\"" + user.getEmail() + "\",\"password\":\"" + PASSWORD + "\"}"))
+                    .build();
+            HttpResponse<String> response = client.send(login, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login failed with status " + response.statusCode());
+            }
+            clients.add(new Client(response.body(), cardIds));
+        }
+        return clients;
+    }
+
+    private Map<Operation, Latencies> work(String baseUrl, Client user, long measureFrom, long end) {
+        Map<Operation, Latencies> result = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            result.put(operation, new Latencies());
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest listing = HttpRequest.newBuilder(URI.create(baseUrl + "/api/cards?size=50"))
+                .header("Authorization", "Bearer " + user.token())
+                .GET()
+                .build();
+
+        for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+            Operation operation = random.nextBoolean() ? Operation.CARD_LISTING : Operation.TRANSFER;
+            HttpRequest request = operation == Operation.CARD_LISTING
+                    ? listing
+                    : transfer(baseUrl, user, random);
+
+            boolean ok;
+            long started = System.nanoTime();
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                ok = status >= 200 && status < 300;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long finished = System.nanoTime();
+
+            if (started >= measureFrom) {
+                result.get(operation).add(finished - started, ok);
+            }
+        }
+        return result;
+    }
+
+    private static HttpRequest transfer(String baseUrl, Client user, ThreadLocalRandom random) {
+        long[] cardIds = user.cardIds();
+        int from = random.nextInt(cardIds.length);
+        int to = (from + 1 + random.nextInt(cardIds.length - 1)) % cardIds.length;
+        String body = "{\"fromCardId\":" + cardIds[from] + ",\"toCardId\":" + cardIds[to]
+                + ",\"amount\":1,\"description\":\"load test\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/transfers/between-own-cards"))
+                .header("Authorization", "Bearer " + user.token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Duration parseDuration(String value) {
+        return Duration.parse("PT" + value.toUpperCase(Locale.ROOT));
+    }
+
+    private record Client(String token, long[] cardIds) {
+    }
+
+    /**
+     * Задержки в наносекундах одного клиентского потока, без упаковки в Long.
+     */
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+        private int errors;
+
+        void add(long latency, boolean ok) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = latency;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Latencies other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        double percentile(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(size - 1, Math.ceil(percentile * size) - 1)];
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.app.benchmark;
+
+import org.example.app.dto.transaction.TransactionParamDTO;
+import org.example.app.model.Card;
+import org.example.app.model.Transaction;
+import org.example.app.model.TransactionType;
+import org.example.app.model.User;
+import org.example.app.repository.TransactionRepository;
+import org.example.app.specification.TransactionSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение спецификации фильтра транзакций и выполнение запроса по ней.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionSpecificationBenchmark {
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    @Param({"10000"})
+    private int transactions;
+
+    private BenchmarkContext context;
+    private TransactionSpecification specification;
+    private TransactionRepository transactionRepository;
+    private TransactionParamDTO params;
+    private PageRequest page;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        specification = context.bean(TransactionSpecification.class);
+        transactionRepository = context.bean(TransactionRepository.class);
+
+        User user = context.createUser();
+        Card card = context.createCards(user, 1, BigDecimal.valueOf(100000)).get(0);
+
+        List<Transaction> history = new ArrayList<>(transactions);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = context.entityGenerator().createTransaction(card);
+            transaction.setType(TYPES[i % TYPES.length]);
+            transaction.setTransactionDate(now.minusHours(i));
+            history.add(transaction);
+        }
+        transactionRepository.saveAll(history);
+
+        params = new TransactionParamDTO();
+        params.setCardId(card.getId());
+        params.setType(TransactionType.PAYMENT);
+        params.setDateFrom(now.minusDays(90));
+        params.setDateTo(now);
+        page = PageRequest.of(0, 50, Sort.by(Sort.Order.desc("transactionDate"), Sort.Order.desc("id")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    @Benchmark
+    public Object build() {
+        return specification.build(params);
+    }
+
+    @Benchmark
+    public List<Transaction> buildAndExecute() {
+        return transactionRepository.findAll(specification.build(params), page).getContent();
+    }
+}
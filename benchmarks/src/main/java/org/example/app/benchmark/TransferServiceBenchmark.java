@@ -0,0 +1,85 @@
+package org.example.app.benchmark;
+
+import org.example.app.component.TransferProperties;
+import org.example.app.component.TransferProperties.ConcurrencyMode;
+import org.example.app.dto.TransferDTO;
+import org.example.app.model.Card;
+import org.example.app.model.User;
+import org.example.app.service.TransferService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Переводы между небольшим числом карт одного пользователя из нескольких потоков,
+ * чтобы измерить цену блокировок и повторов в каждом режиме конкурентности.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class TransferServiceBenchmark {
+    @Param({"ATOMIC", "PESSIMISTIC", "OPTIMISTIC"})
+    private ConcurrencyMode mode;
+
+    // Чем меньше карт, тем сильнее конкуренция за строки
+    @Param({"4"})
+    private int cards;
+
+    private BenchmarkContext context;
+    private TransferService transferService;
+    private Long userId;
+    private List<Long> cardIds;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        transferService = context.bean(TransferService.class);
+        TransferProperties properties = context.bean(TransferProperties.class);
+        properties.setConcurrencyMode(mode);
+        properties.setMaxAttempts(50);
+
+        User user = context.createUser();
+        userId = user.getId();
+        cardIds = context.createCards(user, cards, BigDecimal.valueOf(1_000_000_000L)).stream()
+                .map(Card::getId)
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(cardIds.size());
+        int to = (from + 1 + random.nextInt(cardIds.size() - 1)) % cardIds.size();
+
+        TransferDTO transferDTO = new TransferDTO();
+        transferDTO.setFromCardId(cardIds.get(from));
+        transferDTO.setToCardId(cardIds.get(to));
+        transferDTO.setAmount(BigDecimal.ONE);
+        transferDTO.setDescription("benchmark");
+        transferService.transferBetweenOwnCards(userId, transferDTO);
+    }
+}